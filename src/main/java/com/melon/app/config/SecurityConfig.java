@@ -18,10 +18,20 @@ import org.springframework.web.filter.CorsFilter;
 import com.google.common.util.concurrent.RateLimiter;
 import com.melon.app.security.JwtAuthenticationFilter;
 
+import jakarta.servlet.DispatcherType;
+
 import static org.springframework.security.config.Customizer.withDefaults;
 
 @Configuration
 public class SecurityConfig {
+
+    // Origins allowed to call the API (shared with the WebSocket handshake)
+    public static final String[] ALLOWED_ORIGINS = {
+        "https://plan-ly.com", // Allow requests from cloudflare domain
+        "https://www.plan-ly.com",
+        "https://api.plan-ly.com", // Argo tunnel endpoint
+        "http://localhost:3000" // for development
+    };
     
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtAuthenticationFilter jwtFilter) throws Exception {
@@ -30,6 +40,7 @@ public class SecurityConfig {
             .csrf(csrf -> csrf.disable()) // TODO Disable CSRF protection (not recommended in production)
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()  // Allow preflight CORS requests
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll() // Long-poll results; the original request was already authorized
                 .requestMatchers("/health").permitAll() // Server health check endpoint
                 .requestMatchers("/api/auth/sessions", "/api/auth/users", "/api/auth/validate").permitAll() // allow everyone to access these endpoints
                 .anyRequest().authenticated() // require authentication for any other requests
@@ -48,10 +59,9 @@ public class SecurityConfig {
     @Bean
     public CorsFilter corsFilter() {
         CorsConfiguration config = new CorsConfiguration();
-        config.addAllowedOrigin("https://plan-ly.com");  // Allow requests from cloudflare domain
-        config.addAllowedOrigin("https://www.plan-ly.com");
-        config.addAllowedOrigin("https://api.plan-ly.com"); // Argo tunnel endpoint
-        config.addAllowedOrigin("http://localhost:3000"); // for development
+        for (String origin : ALLOWED_ORIGINS) {
+            config.addAllowedOrigin(origin);
+        }
 
         // Allow common headers
         config.addAllowedHeader("Authorization");
@@ -0,0 +1,47 @@
+package com.melon.app.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
+import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
+import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
+import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+
+import com.melon.app.security.ChatSubscriptionInterceptor;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * STOMP over WebSocket for pushing chat messages to clients.
+ *
+ * The handshake at /ws is an ordinary HTTP request, so it passes through the security
+ * filter chain and is authenticated by the JWT cookie like every other endpoint. The
+ * resulting principal is carried on the STOMP session and checked again on SUBSCRIBE.
+ */
+@Configuration
+@EnableWebSocketMessageBroker
+@RequiredArgsConstructor
+public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+    public static final String CHAT_ROOM_TOPIC_PREFIX = "/topic/chat/rooms/";
+    // Appended to a room's topic for its reaction count updates
+    public static final String REACTIONS_TOPIC_SUFFIX = "/reactions";
+
+    private final ChatSubscriptionInterceptor chatSubscriptionInterceptor;
+
+    @Override
+    public void registerStompEndpoints(StompEndpointRegistry registry) {
+        registry.addEndpoint("/ws")
+            .setAllowedOrigins(SecurityConfig.ALLOWED_ORIGINS);
+    }
+
+    @Override
+    public void configureMessageBroker(MessageBrokerRegistry registry) {
+        registry.enableSimpleBroker("/topic");
+        registry.setApplicationDestinationPrefixes("/app");
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(chatSubscriptionInterceptor);
+    }
+}
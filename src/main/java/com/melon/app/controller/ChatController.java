@@ -2,6 +2,8 @@ package com.melon.app.controller;
 
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -12,17 +14,28 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import com.melon.app.controller.DTO.ChatRoomDTO;
+import com.melon.app.controller.DTO.ChatRoomDTO.ChatRoomDeletionDTO;
+import com.melon.app.controller.DTO.ChatRoomDTO.ChatRoomMemberDTO;
+import com.melon.app.controller.DTO.ChatRoomDTO.MessageSearchPageDTO;
 import com.melon.app.controller.DTO.ChatRoomDTO.MessageDTO;
+import com.melon.app.controller.DTO.ChatRoomDTO.MessagePageDTO;
+import com.melon.app.controller.DTO.ChatRoomDTO.MessageReactionsDTO;
+import com.melon.app.controller.DTO.ChatRoomDTO.PresenceSnapshotDTO;
+import com.melon.app.controller.DTO.MessageCursor;
 import com.melon.app.entity.Role;
 import com.melon.app.entity.User;
 import com.melon.app.entity.chat.ChatRoom;
 import com.melon.app.entity.chat.ChatType;
-import com.melon.app.entity.chat.Message;
+import com.melon.app.entity.chat.Reaction;
 import com.melon.app.service.ChatRoomMembershipService;
 import com.melon.app.service.ChatService;
+import com.melon.app.service.MessageReactionService;
+import com.melon.app.service.PresenceService;
 
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
@@ -34,8 +47,15 @@ import lombok.RequiredArgsConstructor;
 @RequestMapping("/api/chat")
 @RequiredArgsConstructor
 public class ChatController extends BaseController {
+    private static final int MAX_SEARCH_QUERY_LENGTH = 200;
+    private static final int MAX_SEARCH_PAGE = 500;
+    private static final long POLL_TIMEOUT_MILLIS = 25_000;
+    private static final Pattern CLIENT_MESSAGE_ID_PATTERN = Pattern.compile("^[a-zA-Z0-9_-]{1,64}$");
+
     private final ChatService chatService;
     private final ChatRoomMembershipService membershipService;
+    private final PresenceService presenceService;
+    private final MessageReactionService messageReactionService;
     
     // DTOs
     @Data
@@ -60,6 +80,12 @@ public class ChatController extends BaseController {
         @NotBlank(message = "Message content is required")
         @Size(max = MAX_STRING_LENGTH, message = "Message is too long")
         private String content;
+
+        // Optional; resending with the same id returns the original message instead of a duplicate
+        private String clientMessageId;
+
+        // Optional; makes the message a reply in this top-level message's thread
+        private Long parentMessageId;
     }
     
     @Data
@@ -79,8 +105,7 @@ public class ChatController extends BaseController {
             return createErrorResponse(HttpStatus.BAD_REQUEST, "Invalid organization ID");
         }
 
-        List<ChatRoom> rooms = chatService.getUserChatRooms(currentUser.getId(), organizationId);
-        List<ChatRoomDTO> dtos = ChatRoomDTO.fromEntityList(rooms);
+        List<ChatRoomDTO> dtos = chatService.getUserChatRooms(currentUser.getId(), organizationId);
 
         return createSuccessResponseWithPayload("Successfully fetched chat rooms", dtos);
     }
@@ -121,20 +146,106 @@ public class ChatController extends BaseController {
         return createSuccessResponse("Chat room removed successfully");
     }
 
+    // Background purge progress of deleted rooms, for organization admins
+    @GetMapping("/rooms/organization/{orgId}/deletions")
+    public ResponseEntity<?> getChatRoomDeletions(
+            @PathVariable String orgId,
+            @AuthenticationPrincipal User currentUser) {
+        Long organizationId = validateId(orgId);
+        if (!isValidId(organizationId)) {
+            return createErrorResponse(HttpStatus.BAD_REQUEST, "Invalid organization ID");
+        }
+
+        List<ChatRoomDeletionDTO> deletions = chatService.getChatRoomDeletions(organizationId, currentUser.getId());
+        return createSuccessResponseWithPayload("Successfully fetched chat room deletions", deletions);
+    }
+
     // Message Endpoints
     @GetMapping("/rooms/{roomId}/messages")
     public ResponseEntity<?> getChatMessages(
             @PathVariable String roomId,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Long afterSeq,
             @AuthenticationPrincipal User currentUser) {
         Long chatRoomId = validateId(roomId);
         if (!isValidId(chatRoomId)) {
             return createErrorResponse(HttpStatus.BAD_REQUEST, "Invalid chat room ID");
         }
 
-        List<Message> messages = chatService.getChatRoomMessages(chatRoomId, currentUser.getId());
-        List<MessageDTO> dtos = MessageDTO.fromEntityList(messages, currentUser.getId());
+        int positions = (before != null ? 1 : 0) + (after != null ? 1 : 0) + (afterSeq != null ? 1 : 0);
+        if (positions > 1) {
+            return createErrorResponse(HttpStatus.BAD_REQUEST, "Only one of before, after or afterSeq may be provided");
+        }
+
+        if (afterSeq != null) {
+            if (afterSeq < 0) {
+                return createErrorResponse(HttpStatus.BAD_REQUEST, "Invalid message sequence number");
+            }
+            MessagePageDTO page = chatService.getChatRoomMessagesAfterSeq(chatRoomId, currentUser.getId(), afterSeq);
+            return createSuccessResponseWithPayload("Successfully fetched messages", page);
+        }
+
+        MessageCursor beforeCursor = MessageCursor.decode(before);
+        MessageCursor afterCursor = MessageCursor.decode(after);
+        if ((before != null && beforeCursor == null) || (after != null && afterCursor == null)) {
+            return createErrorResponse(HttpStatus.BAD_REQUEST, "Invalid message cursor");
+        }
+
+        MessagePageDTO page = chatService.getChatRoomMessages(chatRoomId, currentUser.getId(), beforeCursor, afterCursor);
+
+        return createSuccessResponseWithPayload("Successfully fetched messages", page);
+    }
+
+    // A thread's replies, oldest first; pass nextCursor back as after to load more
+    @GetMapping("/rooms/{roomId}/messages/{messageId}/replies")
+    public ResponseEntity<?> getThreadReplies(
+            @PathVariable String roomId,
+            @PathVariable String messageId,
+            @RequestParam(required = false) String after,
+            @AuthenticationPrincipal User currentUser) {
+        Long chatRoomId = validateId(roomId);
+        Long parentId = validateId(messageId);
+        if (!isValidId(chatRoomId) || !isValidId(parentId)) {
+            return createErrorResponse(HttpStatus.BAD_REQUEST, "Invalid chat room or message ID");
+        }
+
+        MessageCursor afterCursor = MessageCursor.decode(after);
+        if (after != null && afterCursor == null) {
+            return createErrorResponse(HttpStatus.BAD_REQUEST, "Invalid message cursor");
+        }
+
+        MessagePageDTO page = chatService.getThreadReplies(chatRoomId, parentId, currentUser.getId(), afterCursor);
+        return createSuccessResponseWithPayload("Successfully fetched replies", page);
+    }
+
+    // Long-poll fallback for clients without a WebSocket: waits up to POLL_TIMEOUT_MILLIS for
+    // messages after the cursor and answers with an empty page if none arrive
+    @GetMapping("/rooms/{roomId}/messages/poll")
+    public DeferredResult<ResponseEntity<?>> pollMessages(
+            @PathVariable String roomId,
+            @RequestParam String after,
+            @AuthenticationPrincipal User currentUser) {
+        DeferredResult<ResponseEntity<?>> result = new DeferredResult<>(POLL_TIMEOUT_MILLIS);
+
+        Long chatRoomId = validateId(roomId);
+        if (!isValidId(chatRoomId)) {
+            result.setResult(createErrorResponse(HttpStatus.BAD_REQUEST, "Invalid chat room ID"));
+            return result;
+        }
+
+        MessageCursor afterCursor = MessageCursor.decode(after);
+        if (afterCursor == null) {
+            result.setResult(createErrorResponse(HttpStatus.BAD_REQUEST, "Invalid message cursor"));
+            return result;
+        }
 
-        return createSuccessResponseWithPayload("Successfully fetched messages", dtos);
+        result.onTimeout(() -> result.setResult(createSuccessResponseWithPayload("No new messages",
+            new MessagePageDTO(List.of(), afterCursor.encode(), null, false))));
+        Runnable cancel = chatService.pollMessages(chatRoomId, currentUser.getId(), afterCursor,
+            page -> result.setResult(createSuccessResponseWithPayload("Successfully fetched messages", page)));
+        result.onCompletion(cancel);
+        return result;
     }
 
     @PostMapping("/rooms/{roomId}/messages")
@@ -152,14 +263,63 @@ public class ChatController extends BaseController {
             return createErrorResponse(HttpStatus.BAD_REQUEST, "Invalid message content");
         }
 
+        String clientMessageId = request.getClientMessageId();
+        if (clientMessageId != null && !CLIENT_MESSAGE_ID_PATTERN.matcher(clientMessageId).matches()) {
+            return createErrorResponse(HttpStatus.BAD_REQUEST, "Invalid client message ID");
+        }
+
+        Long parentId = request.getParentMessageId();
+        if (parentId != null && !isValidId(parentId)) {
+            return createErrorResponse(HttpStatus.BAD_REQUEST, "Invalid parent message ID");
+        }
+
         String sanitizedContent = sanitizeInput(request.getContent());
-        Message message = chatService.sendMessage(chatRoomId, currentUser.getId(), sanitizedContent);
-        MessageDTO dto = MessageDTO.fromEntity(message, currentUser.getId());
+        MessageDTO dto = chatService.sendMessage(chatRoomId, currentUser, sanitizedContent, clientMessageId, parentId);
 
         return createSuccessResponseWithPayload("Message sent successfully", dto);
     }
 
+    @GetMapping("/rooms/organization/{orgId}/search")
+    public ResponseEntity<?> searchMessages(
+            @PathVariable String orgId,
+            @RequestParam String q,
+            @RequestParam(required = false) Long roomId,
+            @RequestParam(defaultValue = "0") int page,
+            @AuthenticationPrincipal User currentUser) {
+        Long organizationId = validateId(orgId);
+        if (!isValidId(organizationId) || (roomId != null && !isValidId(roomId))) {
+            return createErrorResponse(HttpStatus.BAD_REQUEST, "Invalid ID provided");
+        }
+
+        if (q.isBlank() || q.length() > MAX_SEARCH_QUERY_LENGTH) {
+            return createErrorResponse(HttpStatus.BAD_REQUEST, "Invalid search query");
+        }
+
+        if (page < 0 || page > MAX_SEARCH_PAGE) {
+            return createErrorResponse(HttpStatus.BAD_REQUEST, "Invalid page");
+        }
+
+        MessageSearchPageDTO results = chatService.searchMessages(currentUser.getId(), organizationId, roomId, q, page);
+        return createSuccessResponseWithPayload("Successfully searched messages", results);
+    }
+
     // Member Management Endpoints
+    @GetMapping("/rooms/{roomId}/members")
+    public ResponseEntity<?> getMembers(
+            @PathVariable String roomId,
+            @AuthenticationPrincipal User currentUser) {
+        Long chatRoomId = validateId(roomId);
+        if (!isValidId(chatRoomId)) {
+            return createErrorResponse(HttpStatus.BAD_REQUEST, "Invalid chat room ID");
+        }
+
+        List<ChatRoomMemberDTO> members = membershipService.getChatRoomMembers(chatRoomId, currentUser.getId()).stream()
+            .map(ChatRoomMemberDTO::fromEntity)
+            .collect(Collectors.toList());
+
+        return createSuccessResponseWithPayload("Successfully fetched chat room members", members);
+    }
+
     @PostMapping("/rooms/{roomId}/members")
     public ResponseEntity<?> addMembers(
             @PathVariable String roomId,
@@ -170,13 +330,13 @@ public class ChatController extends BaseController {
             return createErrorResponse(HttpStatus.BAD_REQUEST, "Invalid ID provided");
         }
 
-        membershipService.addMembersByCriteria(
+        int added = membershipService.addMembersByCriteria(
             chatRoomId,
             request.getOrganizationId(),
             request.getMinimumRole()
         );
         
-        return createSuccessResponse("Members added successfully");
+        return createSuccessResponseWithPayload("Members added successfully", added);
     }
 
     @DeleteMapping("/rooms/{roomId}/members/{userId}")
@@ -221,4 +381,120 @@ public class ChatController extends BaseController {
 
         return createSuccessResponseWithPayload("Successfully fetched unread count", unreadCount);
     }
-}
\ No newline at end of file
+
+    @GetMapping("/rooms/organization/{orgId}/unread-counts")
+    public ResponseEntity<?> getUnreadCounts(
+            @PathVariable String orgId,
+            @AuthenticationPrincipal User currentUser) {
+        Long organizationId = validateId(orgId);
+        if (!isValidId(organizationId)) {
+            return createErrorResponse(HttpStatus.BAD_REQUEST, "Invalid organization ID");
+        }
+        Map<Long, Long> unreadCounts = chatService.getUnreadMessageCounts(currentUser.getId(), organizationId);
+
+        return createSuccessResponseWithPayload("Successfully fetched unread counts", unreadCounts);
+    }
+
+    // Presence Endpoints
+    // Clients send a heartbeat well within chat.presence.ttl-ms to stay online
+    @PostMapping("/presence/organization/{orgId}/heartbeat")
+    public ResponseEntity<?> heartbeat(
+            @PathVariable String orgId,
+            @AuthenticationPrincipal User currentUser) {
+        Long organizationId = validateId(orgId);
+        if (!isValidId(organizationId)) {
+            return createErrorResponse(HttpStatus.BAD_REQUEST, "Invalid organization ID");
+        }
+
+        presenceService.heartbeat(organizationId, currentUser.getId());
+        return createSuccessResponse("Heartbeat received");
+    }
+
+    @DeleteMapping("/presence/organization/{orgId}")
+    public ResponseEntity<?> goOffline(
+            @PathVariable String orgId,
+            @AuthenticationPrincipal User currentUser) {
+        Long organizationId = validateId(orgId);
+        if (!isValidId(organizationId)) {
+            return createErrorResponse(HttpStatus.BAD_REQUEST, "Invalid organization ID");
+        }
+
+        presenceService.goOffline(organizationId, currentUser.getId());
+        return createSuccessResponse("Marked offline");
+    }
+
+    @GetMapping("/presence/organization/{orgId}")
+    public ResponseEntity<?> getPresence(
+            @PathVariable String orgId,
+            @AuthenticationPrincipal User currentUser) {
+        Long organizationId = validateId(orgId);
+        if (!isValidId(organizationId)) {
+            return createErrorResponse(HttpStatus.BAD_REQUEST, "Invalid organization ID");
+        }
+
+        PresenceSnapshotDTO snapshot = presenceService.getSnapshot(organizationId, currentUser.getId());
+        return createSuccessResponseWithPayload("Successfully fetched presence", snapshot);
+    }
+
+    // Repeated while the user types; the indicator clears after chat.presence.typing-ttl-ms
+    @PostMapping("/rooms/{roomId}/typing")
+    public ResponseEntity<?> startTyping(
+            @PathVariable String roomId,
+            @AuthenticationPrincipal User currentUser) {
+        Long chatRoomId = validateId(roomId);
+        if (!isValidId(chatRoomId)) {
+            return createErrorResponse(HttpStatus.BAD_REQUEST, "Invalid chat room ID");
+        }
+
+        presenceService.setTyping(chatRoomId, currentUser.getId(), true);
+        return createSuccessResponse("Typing");
+    }
+
+    @DeleteMapping("/rooms/{roomId}/typing")
+    public ResponseEntity<?> stopTyping(
+            @PathVariable String roomId,
+            @AuthenticationPrincipal User currentUser) {
+        Long chatRoomId = validateId(roomId);
+        if (!isValidId(chatRoomId)) {
+            return createErrorResponse(HttpStatus.BAD_REQUEST, "Invalid chat room ID");
+        }
+
+        presenceService.setTyping(chatRoomId, currentUser.getId(), false);
+        return createSuccessResponse("Stopped typing");
+    }
+
+    @PostMapping("/rooms/{roomId}/messages/{messageId}/reactions/{reaction}")
+    public ResponseEntity<?> addReaction(
+            @PathVariable String roomId,
+            @PathVariable String messageId,
+            @PathVariable String reaction,
+            @AuthenticationPrincipal User currentUser) {
+        return setReaction(roomId, messageId, reaction, currentUser, true);
+    }
+
+    @DeleteMapping("/rooms/{roomId}/messages/{messageId}/reactions/{reaction}")
+    public ResponseEntity<?> removeReaction(
+            @PathVariable String roomId,
+            @PathVariable String messageId,
+            @PathVariable String reaction,
+            @AuthenticationPrincipal User currentUser) {
+        return setReaction(roomId, messageId, reaction, currentUser, false);
+    }
+
+    private ResponseEntity<?> setReaction(String roomId, String messageId, String reaction, User currentUser, boolean reacted) {
+        Long chatRoomId = validateId(roomId);
+        Long msgId = validateId(messageId);
+        if (!isValidId(chatRoomId) || !isValidId(msgId)) {
+            return createErrorResponse(HttpStatus.BAD_REQUEST, "Invalid chat room or message ID");
+        }
+        Reaction parsed;
+        try {
+            parsed = Reaction.valueOf(reaction);
+        } catch (IllegalArgumentException e) {
+            return createErrorResponse(HttpStatus.BAD_REQUEST, "Unknown reaction");
+        }
+
+        MessageReactionsDTO reactions = messageReactionService.setReaction(chatRoomId, msgId, currentUser.getId(), parsed, reacted);
+        return createSuccessResponseWithPayload(reacted ? "Reaction added" : "Reaction removed", reactions);
+    }
+}
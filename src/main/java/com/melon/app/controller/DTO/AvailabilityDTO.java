@@ -0,0 +1,22 @@
+package com.melon.app.controller.DTO;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * How many members of an organization are busy in each slot of the week. busyCounts has
+ * one entry per slotMinutes-long slot, starting Monday 00:00.
+ */
+@Getter
+@Setter
+public class AvailabilityDTO {
+    private int slotMinutes;
+    private int memberCount;
+    private int[] busyCounts;
+
+    public AvailabilityDTO(int slotMinutes, int memberCount, int[] busyCounts) {
+        this.slotMinutes = slotMinutes;
+        this.memberCount = memberCount;
+        this.busyCounts = busyCounts;
+    }
+}
@@ -4,6 +4,8 @@ import com.melon.app.entity.chat.ChatRoom;
 import com.melon.app.entity.chat.ChatRoomMember;
 import com.melon.app.entity.chat.ChatType;
 import com.melon.app.entity.chat.Message;
+import com.melon.app.entity.chat.Reaction;
+import com.melon.app.repository.chat.ChatRoomRepository.ChatRoomSummary;
 
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -11,6 +13,7 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -55,6 +58,25 @@ public class ChatRoomDTO {
         return dto;
     }
 
+    /**
+     * Builds a room list entry from its summary row. Members are not included; they are
+     * fetched separately when a room is opened.
+     * @param lastReadSeq the member's read position, which may be ahead of the summary's
+     */
+    public static ChatRoomDTO fromSummary(ChatRoomSummary summary, long lastReadSeq, MessageDTO lastMessage) {
+        ChatRoomDTO dto = new ChatRoomDTO();
+        dto.setId(summary.getId());
+        dto.setName(summary.getName());
+        dto.setOrganizationId(summary.getOrganizationId());
+        dto.setOrganizationName(summary.getOrganizationName());
+        dto.setType(summary.getType());
+        dto.setCreatedAt(summary.getCreatedAt());
+        dto.setMemberCount(summary.getMemberCount().intValue());
+        dto.setUnreadMessages(Math.max(summary.getMessageSeq() - lastReadSeq, 0));
+        dto.setLastMessage(lastMessage);
+        return dto;
+    }
+
     @Data
     @NoArgsConstructor
     public static class ChatRoomMemberDTO {
@@ -75,12 +97,22 @@ public class ChatRoomDTO {
     @NoArgsConstructor
     public static class MessageDTO {
         private Long id;
+        private Long seq;
         private Long senderId;
         private String senderUsername;
         private String content;
         private LocalDateTime sentAt;
         private boolean isEdited;
         private boolean isOwn;
+        // Set on replies: the top-level message they belong to
+        private Long parentId;
+        // Top-level messages only: the size of the thread and its newest reply, if any
+        private int replyCount;
+        private MessageDTO latestReply;
+        // Only reactions with a non-zero count
+        private Map<Reaction, Integer> reactions;
+        // The reactions the requesting user has left on this message
+        private List<Reaction> myReactions;
 
         public static List<MessageDTO> fromEntityList(List<Message> messages, Long currentUserId) {
             if (messages == null) {
@@ -94,13 +126,125 @@ public class ChatRoomDTO {
         public static MessageDTO fromEntity(Message message, Long currentUserId) {
             MessageDTO dto = new MessageDTO();
             dto.setId(message.getId());
+            dto.setSeq(message.getSeq());
             dto.setSenderId(message.getSender().getId());
             dto.setSenderUsername(message.getSender().getUsername());
             dto.setContent(message.getContent());
             dto.setSentAt(message.getSentAt());
             dto.setEdited(message.isEdited());
             dto.setOwn(message.getSender().getId().equals(currentUserId));
+            dto.setParentId(message.getParentId());
+            dto.setReplyCount(message.getReplyCount() != null ? message.getReplyCount() : 0);
+            dto.setReactions(Reaction.countsOf(message.getReactionCounts()));
+            dto.setMyReactions(List.of());
             return dto;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * One page of a room's history in display order (oldest first).
+     * nextCursor continues in the direction that was requested and is null once that
+     * direction is exhausted; prevCursor points back the other way from this page.
+     */
+    @Data
+    @NoArgsConstructor
+    public static class MessagePageDTO {
+        private List<MessageDTO> messages;
+        private String nextCursor;
+        private String prevCursor;
+        private boolean hasMore;
+
+        public MessagePageDTO(List<MessageDTO> messages, String nextCursor, String prevCursor, boolean hasMore) {
+            this.messages = messages;
+            this.nextCursor = nextCursor;
+            this.prevCursor = prevCursor;
+            this.hasMore = hasMore;
+        }
+    }
+
+    /**
+     * A search hit: the matching message and the room it was posted in.
+     */
+    @Data
+    @NoArgsConstructor
+    public static class MessageSearchResultDTO {
+        private Long chatRoomId;
+        private MessageDTO message;
+
+        public MessageSearchResultDTO(Long chatRoomId, MessageDTO message) {
+            this.chatRoomId = chatRoomId;
+            this.message = message;
+        }
+    }
+
+    /**
+     * One page of search results, best match first.
+     */
+    @Data
+    @NoArgsConstructor
+    public static class MessageSearchPageDTO {
+        private List<MessageSearchResultDTO> results;
+        private int page;
+        private int totalResults;
+        private boolean hasMore;
+
+        public MessageSearchPageDTO(List<MessageSearchResultDTO> results, int page, int totalResults, boolean hasMore) {
+            this.results = results;
+            this.page = page;
+            this.totalResults = totalResults;
+            this.hasMore = hasMore;
+        }
+    }
+
+    /**
+     * Progress of a deleted room's background purge. The totals are counted when the purge
+     * starts, so they are null while the room is still waiting for its turn.
+     */
+    @Data
+    @NoArgsConstructor
+    public static class ChatRoomDeletionDTO {
+        private Long chatRoomId;
+        private String name;
+        private String status;
+        private LocalDateTime deletedAt;
+        private LocalDateTime completedAt;
+        private Long messagesTotal;
+        private long messagesDeleted;
+        private Long membersTotal;
+        private long membersDeleted;
+    }
+
+    /**
+     * Who is online in an organization and who is typing in each of the caller's rooms there.
+     * Rooms nobody is typing in are left out.
+     */
+    @Data
+    @NoArgsConstructor
+    public static class PresenceSnapshotDTO {
+        private List<Long> online;
+        private Map<Long, List<Long>> typing;
+
+        public PresenceSnapshotDTO(List<Long> online, Map<Long, List<Long>> typing) {
+            this.online = online;
+            this.typing = typing;
+        }
+    }
+
+    /**
+     * A message's reaction counts after a change. myReactions is the caller's own reactions in
+     * responses and null when pushed to the room's subscribers.
+     */
+    @Data
+    @NoArgsConstructor
+    public static class MessageReactionsDTO {
+        private Long messageId;
+        private Map<Reaction, Integer> reactions;
+        private List<Reaction> myReactions;
+
+        public MessageReactionsDTO(Long messageId, Map<Reaction, Integer> reactions, List<Reaction> myReactions) {
+            this.messageId = messageId;
+            this.reactions = reactions;
+            this.myReactions = myReactions;
+        }
+    }
+}
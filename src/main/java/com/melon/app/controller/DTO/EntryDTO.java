@@ -1,10 +1,14 @@
 package com.melon.app.controller.DTO;
 
+import com.melon.app.entity.ScheduleEntry;
+
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Getter
 @Setter
+@NoArgsConstructor
 public class EntryDTO {
     private Long id;
     private String eventDay;
@@ -19,4 +23,8 @@ public class EntryDTO {
         this.eventEndTime = eventEndTime;
         this.eventName = eventName;
     }
+
+    public EntryDTO(ScheduleEntry entry) {
+        this(entry.getId(), entry.getEventDay(), entry.getEventStartTime(), entry.getEventEndTime(), entry.getEventName());
+    }
 }
@@ -0,0 +1,21 @@
+package com.melon.app.controller.DTO;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * An upcoming organization event and the requesting user's schedule entries it overlaps.
+ */
+@Getter
+@Setter
+public class EventConflictDTO {
+    private EventDTO event;
+    private List<EntryDTO> entries;
+
+    public EventConflictDTO(EventDTO event, List<EntryDTO> entries) {
+        this.event = event;
+        this.entries = entries;
+    }
+}
@@ -0,0 +1,32 @@
+package com.melon.app.controller.DTO;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A stretch of the week in which every requested member is free. Minutes are counted from
+ * Monday 00:00. A window that ends at midnight ends at "24:00" of the day before, and windows
+ * may span several days when no daily time bounds were given.
+ */
+@Getter
+@Setter
+public class FreeWindowDTO {
+    private int startMinute;
+    private int endMinute;
+    private String startDay;
+    private String startTime;
+    private String endDay;
+    private String endTime;
+    private int durationMinutes;
+
+    public FreeWindowDTO(int startMinute, int endMinute, String startDay, String startTime,
+                         String endDay, String endTime) {
+        this.startMinute = startMinute;
+        this.endMinute = endMinute;
+        this.startDay = startDay;
+        this.startTime = startTime;
+        this.endDay = endDay;
+        this.endTime = endTime;
+        this.durationMinutes = endMinute - startMinute;
+    }
+}
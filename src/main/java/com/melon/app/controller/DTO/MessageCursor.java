@@ -0,0 +1,61 @@
+package com.melon.app.controller.DTO;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Comparator;
+
+import com.melon.app.entity.chat.Message;
+
+/**
+ * Opaque keyset position in a chat room's history. A cursor points at a single
+ * message by its (sentAt, id) pair, which is unique and matches the ordering of the
+ * messages index, so a page can be fetched with a range scan instead of an OFFSET.
+ *
+ * Clients only ever see the encoded form and hand it back unchanged.
+ */
+public record MessageCursor(LocalDateTime sentAt, Long id) implements Comparable<MessageCursor> {
+    private static final String SEPARATOR = "|";
+    private static final Comparator<MessageCursor> ORDER =
+        Comparator.comparing(MessageCursor::sentAt).thenComparing(MessageCursor::id);
+
+    public static MessageCursor of(Message message) {
+        return new MessageCursor(message.getSentAt(), message.getId());
+    }
+
+    /**
+     * Orders cursors the same way messages are ordered in a room's history.
+     */
+    @Override
+    public int compareTo(MessageCursor other) {
+        return ORDER.compare(this, other);
+    }
+
+    public String encode() {
+        String raw = sentAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param encoded cursor string previously produced by {@link #encode()}
+     * @return the decoded cursor, or null if the value is missing or malformed
+     */
+    public static MessageCursor decode(String encoded) {
+        if (encoded == null || encoded.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(encoded.trim()), StandardCharsets.UTF_8);
+            int split = raw.lastIndexOf(SEPARATOR);
+            if (split <= 0) {
+                return null;
+            }
+            LocalDateTime sentAt = LocalDateTime.parse(raw.substring(0, split));
+            long id = Long.parseLong(raw.substring(split + 1));
+            return id > 0 ? new MessageCursor(sentAt, id) : null;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return null;
+        }
+    }
+}
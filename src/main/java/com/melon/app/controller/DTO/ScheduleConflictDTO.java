@@ -0,0 +1,22 @@
+package com.melon.app.controller.DTO;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * What a proposed weekly time range would overlap: the requesting user's schedule entries and
+ * the organization's upcoming events on that weekday.
+ */
+@Getter
+@Setter
+public class ScheduleConflictDTO {
+    private List<EntryDTO> entries;
+    private List<EventDTO> events;
+
+    public ScheduleConflictDTO(List<EntryDTO> entries, List<EventDTO> events) {
+        this.entries = entries;
+        this.events = events;
+    }
+}
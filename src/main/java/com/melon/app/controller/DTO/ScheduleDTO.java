@@ -6,10 +6,12 @@ import java.util.stream.Collectors;
 import com.melon.app.entity.Schedule;
 
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Getter
 @Setter
+@NoArgsConstructor
 public class ScheduleDTO {
     private Long id;
     private String name;
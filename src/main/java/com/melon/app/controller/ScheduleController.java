@@ -1,7 +1,12 @@
 package com.melon.app.controller;
 
+import java.time.DayOfWeek;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -16,26 +21,47 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.melon.app.controller.DTO.AvailabilityDTO;
 import com.melon.app.controller.DTO.EntryDTO;
+import com.melon.app.controller.DTO.EventConflictDTO;
+import com.melon.app.controller.DTO.FreeWindowDTO;
+import com.melon.app.controller.DTO.ScheduleConflictDTO;
 import com.melon.app.controller.DTO.ScheduleDTO;
 import com.melon.app.entity.Schedule;
+import com.melon.app.entity.ScheduleEntry;
 import com.melon.app.entity.User;
+import com.melon.app.service.AvailabilityService;
+import com.melon.app.service.ScheduleConflictService;
 import com.melon.app.service.ScheduleService;
+import com.melon.app.service.schedule.WeekSlots;
 
 import jakarta.validation.Valid;
+import lombok.Data;
 
 @RestController
 @RequestMapping("/api/schedules")
 @Validated
 public class ScheduleController extends BaseController {
+    // Compiled once rather than by String.matches on every entry of every write
+    private static final Pattern TIME_PATTERN = Pattern.compile("^([01]?[0-9]|2[0-3]):[0-5][0-9]$");
+    private static final Pattern DAY_PATTERN =
+        Pattern.compile("^(MONDAY|TUESDAY|WEDNESDAY|THURSDAY|FRIDAY|SATURDAY|SUNDAY)$");
+    // Upper bound on the members a free-window search can plan for
+    private static final int MAX_FREE_WINDOW_USERS = 5000;
 
     private final ScheduleService scheduleService;
+    private final AvailabilityService availabilityService;
+    private final ScheduleConflictService scheduleConflictService;
 
     @Autowired
-    public ScheduleController(ScheduleService scheduleService) {
+    public ScheduleController(ScheduleService scheduleService, AvailabilityService availabilityService,
+                              ScheduleConflictService scheduleConflictService) {
         this.scheduleService = scheduleService;
+        this.availabilityService = availabilityService;
+        this.scheduleConflictService = scheduleConflictService;
     }
 
     @PostMapping
@@ -107,14 +133,129 @@ public class ScheduleController extends BaseController {
         return createSuccessResponseWithPayload("Successfully fetched member schedules", schedules);
     }
 
+    // Busy member counts per 15-minute slot of the week, instead of every member's entries
+    @GetMapping("/availability/organization/{orgId}")
+    public ResponseEntity<?> getOrganizationAvailability(@PathVariable Long orgId) {
+        if (!isValidId(orgId)) {
+            return createErrorResponse(HttpStatus.BAD_REQUEST, "Invalid organization ID");
+        }
+
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        User user = (User) auth.getPrincipal();
+        AvailabilityDTO availability = availabilityService.getHeatmap(orgId, user.getId());
+        return createSuccessResponseWithPayload("Successfully fetched availability", availability);
+    }
+
+    @Data
+    public static class FreeWindowRequest {
+        private List<Long> userIds;
+        private Integer minDurationMinutes;
+        // Optional; every day if absent
+        private List<String> days;
+        // Optional daily bounds as HH:mm; the whole day if absent
+        private String startTime;
+        private String endTime;
+    }
+
+    // Windows of the week in which all of the given members are free
+    @PostMapping("/availability/organization/{orgId}/free-windows")
+    public ResponseEntity<?> findFreeWindows(
+            @PathVariable Long orgId,
+            @RequestBody FreeWindowRequest request) {
+        if (!isValidId(orgId)) {
+            return createErrorResponse(HttpStatus.BAD_REQUEST, "Invalid organization ID");
+        }
+
+        List<Long> userIds = request.getUserIds();
+        if (userIds == null || userIds.isEmpty() || userIds.size() > MAX_FREE_WINDOW_USERS
+                || !userIds.stream().allMatch(this::isValidId)) {
+            return createErrorResponse(HttpStatus.BAD_REQUEST, "Invalid user IDs");
+        }
+
+        Integer minMinutes = request.getMinDurationMinutes();
+        if (minMinutes == null || minMinutes < 1 || minMinutes > WeekSlots.MINUTES_PER_WEEK) {
+            return createErrorResponse(HttpStatus.BAD_REQUEST, "Invalid minimum duration");
+        }
+
+        Set<DayOfWeek> days = null;
+        if (request.getDays() != null) {
+            if (request.getDays().isEmpty() || !request.getDays().stream().allMatch(this::isValidDayFormat)) {
+                return createErrorResponse(HttpStatus.BAD_REQUEST, "Invalid day format");
+            }
+            days = EnumSet.noneOf(DayOfWeek.class);
+            for (String day : request.getDays()) {
+                days.add(DayOfWeek.valueOf(day.toUpperCase()));
+            }
+        }
+
+        if ((request.getStartTime() != null && !isValidTimeFormat(request.getStartTime()))
+                || (request.getEndTime() != null && !isValidTimeFormat(request.getEndTime()))) {
+            return createErrorResponse(HttpStatus.BAD_REQUEST, "Invalid time format");
+        }
+        // Minutes into Monday are minutes into the day
+        int dayStart = request.getStartTime() != null
+            ? ScheduleEntry.minuteOfWeek(DayOfWeek.MONDAY.name(), request.getStartTime()) : 0;
+        int dayEnd = request.getEndTime() != null
+            ? ScheduleEntry.minuteOfWeek(DayOfWeek.MONDAY.name(), request.getEndTime()) : ScheduleEntry.MINUTES_PER_DAY;
+        if (dayEnd <= dayStart) {
+            return createErrorResponse(HttpStatus.BAD_REQUEST, "End time must be after start time");
+        }
+
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        User user = (User) auth.getPrincipal();
+        List<FreeWindowDTO> windows = availabilityService.findFreeWindows(
+            orgId, user.getId(), new LinkedHashSet<>(userIds), minMinutes, days, dayStart, dayEnd);
+        return createSuccessResponseWithPayload("Successfully found free windows", windows);
+    }
+
+    // The organization's upcoming events that overlap the current user's schedule entries
+    @GetMapping("/conflicts/organization/{orgId}/events")
+    public ResponseEntity<?> getEventConflicts(@PathVariable Long orgId) {
+        if (!isValidId(orgId)) {
+            return createErrorResponse(HttpStatus.BAD_REQUEST, "Invalid organization ID");
+        }
+
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        User user = (User) auth.getPrincipal();
+        List<EventConflictDTO> conflicts = scheduleConflictService.findEventConflicts(orgId, user.getId());
+        return createSuccessResponseWithPayload("Successfully fetched event conflicts", conflicts);
+    }
+
+    // What a proposed weekly entry would overlap, before it is saved
+    @GetMapping("/conflicts/organization/{orgId}")
+    public ResponseEntity<?> getConflicts(
+            @PathVariable Long orgId,
+            @RequestParam String day,
+            @RequestParam String startTime,
+            @RequestParam String endTime) {
+        if (!isValidId(orgId)) {
+            return createErrorResponse(HttpStatus.BAD_REQUEST, "Invalid organization ID");
+        }
+        if (!isValidDayFormat(day)) {
+            return createErrorResponse(HttpStatus.BAD_REQUEST, "Invalid day format");
+        }
+        if (!isValidTimeFormat(startTime) || !isValidTimeFormat(endTime)) {
+            return createErrorResponse(HttpStatus.BAD_REQUEST, "Invalid time format");
+        }
+        int startMinute = ScheduleEntry.minuteOfWeek(day, startTime);
+        int endMinute = ScheduleEntry.minuteOfWeek(day, endTime);
+        if (endMinute <= startMinute) {
+            return createErrorResponse(HttpStatus.BAD_REQUEST, "End time must be after start time");
+        }
+
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        User user = (User) auth.getPrincipal();
+        ScheduleConflictDTO conflicts = scheduleConflictService.findConflicts(orgId, user.getId(), startMinute, endMinute);
+        return createSuccessResponseWithPayload("Successfully checked conflicts", conflicts);
+    }
+
     // Helper methods for validation
     private boolean isValidTimeFormat(String time) {
-        return time != null && time.matches("^([01]?[0-9]|2[0-3]):[0-5][0-9]$");
+        return time != null && TIME_PATTERN.matcher(time).matches();
     }
 
     private boolean isValidDayFormat(String day) {
-        return day != null && 
-               day.toUpperCase().matches("^(MONDAY|TUESDAY|WEDNESDAY|THURSDAY|FRIDAY|SATURDAY|SUNDAY)$");
+        return day != null && DAY_PATTERN.matcher(day.toUpperCase()).matches();
     }
 
     /**
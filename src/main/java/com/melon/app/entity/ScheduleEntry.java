@@ -1,19 +1,31 @@
 package com.melon.app.entity;
 
+import java.time.DayOfWeek;
+
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
 import lombok.Getter;
 import lombok.Setter;
 
 @Entity
+@Table(indexes = {
+    // Range and overlap lookups over a schedule's entries compare these integers only
+    @Index(name = "idx_schedule_entry_schedule_minutes", columnList = "schedule_id, start_minute, end_minute")
+})
 @Getter
 @Setter
 public class ScheduleEntry {
+    public static final int MINUTES_PER_DAY = 24 * 60;
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -28,6 +40,14 @@ public class ScheduleEntry {
     private String eventEndTime;
     private String eventName;
 
+    // Minutes since Monday 00:00, derived from eventDay and the times whenever the entry is
+    // written. An entry whose end is not after its start covers no time
+    @Column(name = "start_minute")
+    private Integer startMinute;
+
+    @Column(name = "end_minute")
+    private Integer endMinute;
+
     public ScheduleEntry() {}
 
     public ScheduleEntry(Schedule parent, String eventDay, String eventStartTime, String eventEndTime, String eventName) {
@@ -37,4 +57,37 @@ public class ScheduleEntry {
         this.eventEndTime = eventEndTime;
         this.eventName = eventName;
     }
+
+    // Also called before an entry is written, to check it against others
+    @PrePersist
+    @PreUpdate
+    public void computeMinutes() {
+        int start = minuteOfWeek(eventDay, eventStartTime);
+        int end = minuteOfWeek(eventDay, eventEndTime);
+        this.startMinute = start >= 0 ? start : null;
+        this.endMinute = end >= 0 ? end : null;
+    }
+
+    /**
+     * @param day a day name as stored on entries, in any case
+     * @param time "H:mm" or "HH:mm"
+     * @return minutes since Monday 00:00, or -1 if either value cannot be parsed
+     */
+    public static int minuteOfWeek(String day, String time) {
+        if (day == null || time == null) {
+            return -1;
+        }
+        int colon = time.indexOf(':');
+        try {
+            int dayIndex = DayOfWeek.valueOf(day.toUpperCase()).ordinal();
+            int hours = Integer.parseInt(time.substring(0, colon));
+            int minutes = Integer.parseInt(time.substring(colon + 1));
+            if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59) {
+                return -1;
+            }
+            return dayIndex * MINUTES_PER_DAY + hours * 60 + minutes;
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            return -1;
+        }
+    }
 }
@@ -36,13 +36,24 @@ public class ChatRoom {
     @Column(nullable = false)
     private LocalDateTime createdAt;
 
-    @OneToMany(mappedBy = "chatRoom", cascade = CascadeType.ALL, orphanRemoval = true)
-    @JsonManagedReference
-    private Set<ChatRoomMember> members = new HashSet<>();
+    // Highest message sequence number stored in this room, i.e. the number of messages ever
+    // sent to it. Members store the value they last read, so unread counts are a subtraction
+    // instead of a COUNT over messages. Only MessageSequencer changes it, so saving a loaded
+    // room never writes back a stale value.
+    @Column(name = "message_seq", updatable = false)
+    private Long messageSeq = 0L;
+
+    // Id of the newest message, kept alongside messageSeq so room lists can show a preview cheaply
+    @Column(name = "last_message_id")
+    private Long lastMessageId;
+
+    // Set when the room is deleted; its messages and members are then purged in the background
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
 
     @OneToMany(mappedBy = "chatRoom", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonManagedReference
-    private Set<Message> messages = new HashSet<>();
+    private Set<ChatRoomMember> members = new HashSet<>();
 
     public ChatRoom() {
         this.createdAt = LocalDateTime.now();
@@ -87,7 +98,6 @@ public class ChatRoom {
                 ", type=" + type +
                 ", createdAt=" + createdAt +
                 ", membersCount=" + (members != null ? members.size() : 0) +
-                ", messagesCount=" + (messages != null ? messages.size() : 0) +
                 '}';
     }
 }
\ No newline at end of file
@@ -31,6 +31,10 @@ public class ChatRoomMember {
     @Column(nullable = false)
     private LocalDateTime lastRead;
 
+    // Room messageSeq at the time the member last read the room
+    @Column(name = "last_read_seq")
+    private Long lastReadSeq = 0L;
+
     public ChatRoomMember() {
         this.lastRead = LocalDateTime.now();
     }
@@ -39,6 +43,8 @@ public class ChatRoomMember {
         this.chatRoom = chatRoom;
         this.organizationMembership = organizationMembership;
         this.lastRead = LocalDateTime.now();
+        // New members start with the existing history marked as read
+        this.lastReadSeq = chatRoom.getMessageSeq() != null ? chatRoom.getMessageSeq() : 0L;
     }
 
     @Override
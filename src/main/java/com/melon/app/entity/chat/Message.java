@@ -1,8 +1,10 @@
 package com.melon.app.entity.chat;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
 
-import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.melon.app.entity.User;
 
@@ -12,24 +14,37 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.Getter;
 import lombok.Setter;
 
 @Entity
-@Table(name = "messages")
+@Table(name = "messages", indexes = {
+    // Backs keyset pagination of room history and of threads (see MessageRepository); top-level
+    // messages have no parent, so a page of history never scans over replies
+    @Index(name = "idx_messages_room_parent_sent_at_id", columnList = "chat_room_id, parent_id, sent_at, id")
+}, uniqueConstraints = {
+    // Each room's sequence numbers are unique; also backs "since seq N" reads
+    @UniqueConstraint(name = "uk_messages_room_seq", columnNames = {"chat_room_id", "seq"}),
+    // Makes retried sends idempotent (see MessageDedupCache); rows without a client id are not constrained
+    @UniqueConstraint(name = Message.CLIENT_ID_CONSTRAINT, columnNames = {"chat_room_id", "sender_id", "client_message_id"})
+})
 @Getter
 @Setter
 public class Message {
+    public static final String CLIENT_ID_CONSTRAINT = "uk_messages_room_sender_client_id";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "chat_room_id", nullable = false)
-    @JsonBackReference
+    @JsonIgnore
     private ChatRoom chatRoom;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -43,21 +58,72 @@ public class Message {
     @Column(nullable = false)
     private LocalDateTime sentAt;
 
+    // Position in the room's history, dense and strictly increasing; allocated in the insert
+    // transaction by MessageSequencer
+    @Column(name = "seq")
+    private Long seq;
+
+    // The top-level message this one replies to, or null for a top-level message.
+    // Threads are one level deep, so a reply is never a parent itself
+    @Column(name = "parent_id")
+    private Long parentId;
+
+    // Only set on top-level messages that have replies; kept up to date as replies are stored
+    @Column(name = "reply_count")
+    private Integer replyCount;
+
+    @Column(name = "last_reply_id")
+    private Long lastReplyId;
+
     @Column(nullable = false)
     private boolean isEdited = false;
 
     @Column(nullable = false)
     private boolean isDeleted = false;
 
+    // Optional id the sending client generated for this message
+    @Column(length = 64)
+    @JsonIgnore
+    private String clientMessageId;
+
+    // Count of each Reaction in palette order, e.g. "2,0,1"; null once nobody has reacted.
+    // Updated together with message_reactions under this row's lock (see MessageReactionService)
+    @Column(name = "reaction_counts", length = 255)
+    @JsonIgnore
+    private String reactionCounts;
+
     public Message() {
-        this.sentAt = LocalDateTime.now();
+        this.sentAt = now();
     }
 
     public Message(ChatRoom chatRoom, User sender, String content) {
         this.chatRoom = chatRoom;
         this.sender = sender;
         this.content = content;
-        this.sentAt = LocalDateTime.now();
+        this.sentAt = now();
+    }
+
+    /**
+     * Current time at the precision the database stores, so that the timestamp held in memory
+     * (and handed out in cursors) is exactly the one that gets persisted.
+     */
+    public static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    /**
+     * @return true if the failure, or anything that caused it, names the client message id
+     *         constraint, i.e. the message is a duplicate of one already stored
+     */
+    public static boolean violatesClientIdConstraint(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            // Databases differ in the case they report constraint names in
+            if (cause.getMessage() != null
+                    && cause.getMessage().toLowerCase(Locale.ROOT).contains(CLIENT_ID_CONSTRAINT)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @Override
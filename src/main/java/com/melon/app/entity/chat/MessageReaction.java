@@ -0,0 +1,54 @@
+package com.melon.app.entity.chat;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * The reactions one user has left on one message, as a bitmask of {@link Reaction} bits.
+ *
+ * Rows reference the message by id only: messages are moved out of the table by the archiver,
+ * and a user's reactions stay readable afterwards. They are removed with the room.
+ */
+@Entity
+@Table(name = "message_reactions", indexes = {
+    // Used when a room is purged
+    @Index(name = "idx_message_reactions_room", columnList = "chat_room_id")
+}, uniqueConstraints = {
+    // Also backs the per-page "which of these did I react to" lookup
+    @UniqueConstraint(name = "uk_message_reactions_user_message", columnNames = {"user_id", "message_id"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class MessageReaction {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "chat_room_id", nullable = false)
+    private Long chatRoomId;
+
+    @Column(name = "message_id", nullable = false)
+    private Long messageId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private int reactions;
+
+    public MessageReaction(Long chatRoomId, Long messageId, Long userId) {
+        this.chatRoomId = chatRoomId;
+        this.messageId = messageId;
+        this.userId = userId;
+    }
+}
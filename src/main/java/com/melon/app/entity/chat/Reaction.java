@@ -0,0 +1,93 @@
+package com.melon.app.entity.chat;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The reactions a message can receive. A reaction's ordinal is its bit in
+ * {@link MessageReaction#getReactions()} and its position in {@link Message#getReactionCounts()},
+ * so new reactions may only be appended.
+ */
+public enum Reaction {
+    THUMBS_UP,
+    HEART,
+    LAUGH,
+    SURPRISED,
+    SAD,
+    CELEBRATE;
+
+    private static final Reaction[] VALUES = values();
+
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * @return the reactions whose bits are set in the mask, in palette order
+     */
+    public static List<Reaction> fromMask(int mask) {
+        List<Reaction> reactions = new ArrayList<>(Integer.bitCount(mask));
+        for (Reaction reaction : VALUES) {
+            if ((mask & reaction.bit()) != 0) {
+                reactions.add(reaction);
+            }
+        }
+        return reactions;
+    }
+
+    /**
+     * Parses a counts column: one count per reaction in palette order, comma separated.
+     * Missing trailing counts are zero.
+     */
+    public static int[] decodeCounts(String encoded) {
+        int[] counts = new int[VALUES.length];
+        if (encoded == null || encoded.isEmpty()) {
+            return counts;
+        }
+        String[] parts = encoded.split(",");
+        for (int i = 0; i < Math.min(parts.length, counts.length); i++) {
+            counts[i] = Integer.parseInt(parts[i]);
+        }
+        return counts;
+    }
+
+    /**
+     * @return the counts column for these counts, or null if they are all zero
+     */
+    public static String encodeCounts(int[] counts) {
+        int length = counts.length;
+        while (length > 0 && counts[length - 1] == 0) {
+            length--;
+        }
+        if (length == 0) {
+            return null;
+        }
+        StringBuilder encoded = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                encoded.append(',');
+            }
+            encoded.append(counts[i]);
+        }
+        return encoded.toString();
+    }
+
+    /**
+     * @return the non-zero counts of a counts column by reaction, in palette order
+     */
+    public static Map<Reaction, Integer> countsOf(String encoded) {
+        Map<Reaction, Integer> counts = new EnumMap<>(Reaction.class);
+        if (encoded == null) {
+            return counts;
+        }
+        int[] decoded = decodeCounts(encoded);
+        for (Reaction reaction : VALUES) {
+            if (decoded[reaction.ordinal()] > 0) {
+                counts.put(reaction, decoded[reaction.ordinal()]);
+            }
+        }
+        return counts;
+    }
+}
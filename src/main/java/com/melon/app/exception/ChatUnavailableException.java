@@ -0,0 +1,10 @@
+package com.melon.app.exception;
+
+public class ChatUnavailableException extends RuntimeException {
+    public ChatUnavailableException(String message) {
+        super(message);
+    }
+    public ChatUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
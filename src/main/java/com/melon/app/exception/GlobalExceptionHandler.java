@@ -126,6 +126,12 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
     }
 
+    @ExceptionHandler(ChatUnavailableException.class)
+    public ResponseEntity<Map<String, String>> handleChatUnavailableException(ChatUnavailableException e) {
+        logger.warn("Chat unavailable: {}", Map.of("error", e.getMessage()));
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
+    }
+
     // Class to represent the error response structure
     public static class ErrorResponse {
         private String error;
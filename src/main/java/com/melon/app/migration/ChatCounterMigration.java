@@ -0,0 +1,53 @@
+package com.melon.app.migration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Backfills the counter-based unread tracking columns (and the room's last message id)
+ * for data created before they existed.
+ *
+ * Hibernate adds chat_rooms.message_seq and chat_room_members.last_read_seq as nullable
+ * columns, so rows that predate them are NULL. Rooms start from their current message count,
+ * and each member's last read sequence is derived from its old lastRead timestamp so the
+ * unread count stays the same. Only NULL rows are touched, so this is safe to run on every start.
+ */
+@Component
+@Order(1)
+@RequiredArgsConstructor
+public class ChatCounterMigration implements Migration {
+    private static final Logger logger = LoggerFactory.getLogger(ChatCounterMigration.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public void migrate() {
+        int rooms = jdbcTemplate.update(
+            "UPDATE chat_rooms SET message_seq = " +
+            "(SELECT COUNT(*) FROM messages m WHERE m.chat_room_id = chat_rooms.id) " +
+            "WHERE message_seq IS NULL");
+
+        int members = jdbcTemplate.update(
+            "UPDATE chat_room_members SET last_read_seq = " +
+            "(SELECT r.message_seq FROM chat_rooms r WHERE r.id = chat_room_members.chat_room_id) - " +
+            "(SELECT COUNT(*) FROM messages m WHERE m.chat_room_id = chat_room_members.chat_room_id " +
+            "AND m.sent_at > chat_room_members.last_read) " +
+            "WHERE last_read_seq IS NULL");
+
+        jdbcTemplate.update(
+            "UPDATE chat_rooms SET last_message_id = " +
+            "(SELECT MAX(m.id) FROM messages m WHERE m.chat_room_id = chat_rooms.id) " +
+            "WHERE last_message_id IS NULL AND message_seq > 0");
+
+        if (rooms > 0 || members > 0) {
+            logger.info("Backfilled unread counters for {} chat rooms and {} chat room members", rooms, members);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.melon.app.migration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Backfills messages.seq for messages stored before per-room sequence numbers existed.
+ *
+ * chat_rooms.message_seq already counts every message sent to a room, including archived
+ * ones, so the unnumbered messages left in the table take the numbers just below it in
+ * (sent_at, id) order. Rooms whose counter is behind their row count are moved up to it.
+ * Only messages with a NULL seq are touched, so this is safe to run on every start.
+ */
+@Component
+@Order(2)
+@RequiredArgsConstructor
+public class MessageSeqMigration implements Migration {
+    private static final Logger logger = LoggerFactory.getLogger(MessageSeqMigration.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public void migrate() {
+        List<Long> chatRoomIds = jdbcTemplate.queryForList(
+            "SELECT DISTINCT chat_room_id FROM messages WHERE seq IS NULL", Long.class);
+
+        int messages = 0;
+        for (Long chatRoomId : chatRoomIds) {
+            messages += backfillRoom(chatRoomId);
+        }
+
+        if (messages > 0) {
+            logger.info("Backfilled sequence numbers for {} messages in {} chat rooms", messages, chatRoomIds.size());
+        }
+    }
+
+    private int backfillRoom(Long chatRoomId) {
+        List<Long> ids = jdbcTemplate.queryForList(
+            "SELECT id FROM messages WHERE chat_room_id = ? AND seq IS NULL ORDER BY sent_at, id", Long.class, chatRoomId);
+        long counter = jdbcTemplate.queryForObject(
+            "SELECT COALESCE(MAX(message_seq), 0) FROM chat_rooms WHERE id = ?", Long.class, chatRoomId);
+        // Messages numbered since the upgrade are newer, so the old ones go below the first of them
+        Long firstNumbered = jdbcTemplate.queryForObject(
+            "SELECT MIN(seq) FROM messages WHERE chat_room_id = ?", Long.class, chatRoomId);
+
+        long next = firstNumbered != null
+            ? firstNumbered - ids.size()
+            : Math.max(counter, ids.size()) - ids.size() + 1;
+        List<Object[]> updates = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            updates.add(new Object[] { next++, id });
+        }
+        jdbcTemplate.batchUpdate("UPDATE messages SET seq = ? WHERE id = ?", updates);
+
+        jdbcTemplate.update(
+            "UPDATE chat_rooms SET message_seq = (SELECT MAX(seq) FROM messages WHERE chat_room_id = ?) " +
+            "WHERE id = ? AND (message_seq IS NULL OR message_seq < (SELECT MAX(seq) FROM messages WHERE chat_room_id = ?))",
+            chatRoomId, chatRoomId, chatRoomId);
+        return ids.size();
+    }
+}
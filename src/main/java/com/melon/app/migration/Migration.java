@@ -0,0 +1,11 @@
+package com.melon.app.migration;
+
+/**
+ * A data backfill for rows written before a column existed. Migrations run in {@code @Order}
+ * once the schema is up to date and before the web server accepts requests (see
+ * {@link MigrationRunner}), so no request ever sees the rows they fill in. They run on every
+ * start and must only touch rows that still need them.
+ */
+public interface Migration {
+    void migrate();
+}
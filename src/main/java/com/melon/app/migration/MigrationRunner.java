@@ -0,0 +1,23 @@
+package com.melon.app.migration;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Runs every {@link Migration} in order after all beans are created. Unlike an
+ * ApplicationRunner this happens before the embedded web server starts listening, so requests
+ * and the caches they fill only ever see migrated data. A failing migration stops startup.
+ */
+@Component
+@RequiredArgsConstructor
+public class MigrationRunner implements SmartInitializingSingleton {
+    private final ObjectProvider<Migration> migrations;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        migrations.orderedStream().forEach(Migration::migrate);
+    }
+}
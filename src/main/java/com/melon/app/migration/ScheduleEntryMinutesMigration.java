@@ -0,0 +1,53 @@
+package com.melon.app.migration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.melon.app.entity.ScheduleEntry;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Backfills schedule_entry.start_minute and end_minute for entries stored before the
+ * minute-of-week columns existed, parsing the day and time strings the same way a write does.
+ * Entries whose strings cannot be parsed keep NULL and are skipped by availability, as before.
+ * Only entries with a NULL start_minute are touched, so this is safe to run on every start.
+ * It finishes before any request can load availability, whose caches would otherwise keep
+ * the unmigrated entries as empty weeks.
+ */
+@Component
+@Order(3)
+@RequiredArgsConstructor
+public class ScheduleEntryMinutesMigration implements Migration {
+    private static final Logger logger = LoggerFactory.getLogger(ScheduleEntryMinutesMigration.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public void migrate() {
+        List<Object[]> updates = new ArrayList<>();
+        jdbcTemplate.query(
+            "SELECT id, event_day, event_start_time, event_end_time FROM schedule_entry WHERE start_minute IS NULL",
+            rs -> {
+                int start = ScheduleEntry.minuteOfWeek(rs.getString("event_day"), rs.getString("event_start_time"));
+                int end = ScheduleEntry.minuteOfWeek(rs.getString("event_day"), rs.getString("event_end_time"));
+                if (start >= 0 && end >= 0) {
+                    updates.add(new Object[] { start, end, rs.getLong("id") });
+                }
+            });
+        if (updates.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate("UPDATE schedule_entry SET start_minute = ?, end_minute = ? WHERE id = ?", updates);
+        logger.info("Backfilled minute-of-week times for {} schedule entries", updates.size());
+    }
+}
@@ -1,8 +1,12 @@
 package com.melon.app.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.melon.app.entity.OrganizationMembership;
@@ -12,4 +16,14 @@ import com.melon.app.entity.OrganizationMembershipId;
 public interface OrganizationMembershipRepository extends JpaRepository<OrganizationMembership, OrganizationMembershipId> {
     Optional<OrganizationMembership> findByOrganizationIdAndUserId(Long orgId, Long userId);
     void deleteByOrganizationIdAndUserId(Long orgId, Long userId);
+
+    @Query("SELECT om.user.id FROM OrganizationMembership om WHERE om.organization.id = :orgId")
+    List<Long> findUserIdsByOrganizationId(@Param("orgId") Long orgId);
+
+    @Query("SELECT om.organization.id FROM OrganizationMembership om WHERE om.user.id = :userId")
+    List<Long> findOrganizationIdsByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT COUNT(om) FROM OrganizationMembership om " +
+           "WHERE om.organization.id = :orgId AND om.user.id IN :userIds")
+    long countByOrganizationIdAndUserIdIn(@Param("orgId") Long orgId, @Param("userIds") Collection<Long> userIds);
 }
@@ -1,5 +1,6 @@
 package com.melon.app.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -9,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.melon.app.entity.Schedule;
+import com.melon.app.entity.ScheduleEntry;
 import com.melon.app.entity.User;
 
 @Repository
@@ -22,4 +24,18 @@ public interface ScheduleRepository extends JpaRepository<Schedule, Long> {
        "JOIN OrganizationMembership om ON om.user = u " +
        "WHERE om.organization.id = :organizationId")
     List<Schedule> findMemberSchedulesByOrganizationId(@Param("organizationId") Long organizationId);
+
+    @Query("SELECT e FROM ScheduleEntry e WHERE e.schedule.user.id = :userId")
+    List<ScheduleEntry> findEntriesByUserId(@Param("userId") Long userId);
+
+    interface EntryTimes {
+        Long getUserId();
+        Integer getStartMinute();
+        Integer getEndMinute();
+    }
+
+    // Just the times of every entry on the users' schedules, for building availability
+    @Query("SELECT s.user.id AS userId, e.startMinute AS startMinute, e.endMinute AS endMinute " +
+           "FROM ScheduleEntry e JOIN e.schedule s WHERE s.user.id IN :userIds")
+    List<EntryTimes> findEntryTimesByUserIdIn(@Param("userIds") Collection<Long> userIds);
 }
@@ -12,6 +12,7 @@ import com.melon.app.entity.UpcomingEvent;
 @Repository
 public interface UpcomingEventRepository extends JpaRepository<UpcomingEvent, Long> {
     List<UpcomingEvent> findByOrganizationIdOrderByDateAscStartTimeAsc(Long organizationId);
+    List<UpcomingEvent> findByOrganizationIdAndDateGreaterThanEqualOrderByDateAscStartTimeAsc(Long organizationId, LocalDate date);
     List<UpcomingEvent> findByDateGreaterThanEqualOrderByDateAscStartTimeAsc(LocalDate date);
     Optional<UpcomingEvent> findByIdAndOrganizationId(Long id, Long organizationId);
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package com.melon.app.repository.chat;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
@@ -9,11 +11,55 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.melon.app.entity.Role;
 import com.melon.app.entity.chat.ChatRoomMember;
 
 @Repository
 public interface ChatRoomMemberRepository extends JpaRepository<ChatRoomMember, Long> {
+    /**
+     * A member's read position alongside its room's message counter.
+     */
+    interface UnreadCounter {
+        Long getChatRoomId();
+        Long getMessageSeq();
+        Long getLastReadSeq();
+
+        /**
+         * @param lastReadSeq the member's read position, which may be ahead of the stored one
+         */
+        default long getUnreadCount(long lastReadSeq) {
+            return Math.max(getMessageSeq() - lastReadSeq, 0);
+        }
+    }
+
     List<ChatRoomMember> findByChatRoomId(Long chatRoomId);
+
+    @Query(value = "SELECT crm.user_id FROM chat_room_members crm JOIN chat_rooms cr ON cr.id = crm.chat_room_id " +
+                   "WHERE crm.chat_room_id = :chatRoomId AND cr.deleted_at IS NULL",
+           nativeQuery = true)
+    List<Long> findUserIdsByChatRoomId(@Param("chatRoomId") Long chatRoomId);
+
+    // Org members with one of the given roles who are not yet in the room
+    @Query("SELECT om.user.id FROM OrganizationMembership om " +
+           "WHERE om.organization.id = :orgId AND om.role IN :roles " +
+           "AND NOT EXISTS (SELECT 1 FROM ChatRoomMember crm " +
+           "WHERE crm.chatRoom.id = :chatRoomId AND crm.organizationMembership = om)")
+    List<Long> findMissingMemberUserIds(
+        @Param("chatRoomId") Long chatRoomId,
+        @Param("orgId") Long orgId,
+        @Param("roles") Collection<Role> roles
+    );
+
+    @Query(value = "SELECT crm.chat_room_id FROM chat_room_members crm JOIN chat_rooms cr ON cr.id = crm.chat_room_id " +
+                   "WHERE crm.organization_id = :orgId AND crm.user_id = :userId AND cr.deleted_at IS NULL",
+           nativeQuery = true)
+    List<Long> findChatRoomIdsByOrganizationIdAndUserId(@Param("orgId") Long orgId, @Param("userId") Long userId);
+
+    @Query("SELECT crm FROM ChatRoomMember crm " +
+           "JOIN FETCH crm.organizationMembership om " +
+           "JOIN FETCH om.user " +
+           "WHERE crm.chatRoom.id = :chatRoomId")
+    List<ChatRoomMember> findWithUsersByChatRoomId(@Param("chatRoomId") Long chatRoomId);
     
     @Query("SELECT crm FROM ChatRoomMember crm " +
            "WHERE crm.chatRoom.id = :chatRoomId " +
@@ -23,10 +69,25 @@ public interface ChatRoomMemberRepository extends JpaRepository<ChatRoomMember,
         @Param("chatRoomId") Long chatRoomId
     );
 
-    @Modifying
-    @Transactional
-    @Query("DELETE FROM ChatRoomMember m WHERE m.chatRoom.id = :chatRoomId")
-    void deleteAllByChatRoomId(Long chatRoomId);
+    // Unread counter for one room; empty if the user is not a member
+    @Query("SELECT crm.chatRoom.id AS chatRoomId, crm.chatRoom.messageSeq AS messageSeq, crm.lastReadSeq AS lastReadSeq " +
+           "FROM ChatRoomMember crm " +
+           "WHERE crm.chatRoom.id = :chatRoomId AND crm.chatRoom.deletedAt IS NULL " +
+           "AND crm.organizationMembership.user.id = :userId")
+    Optional<UnreadCounter> findUnreadCounter(
+        @Param("userId") Long userId,
+        @Param("chatRoomId") Long chatRoomId
+    );
+
+    // Unread counters for every room the user belongs to in an organization, in one query
+    @Query("SELECT cr.id AS chatRoomId, cr.messageSeq AS messageSeq, crm.lastReadSeq AS lastReadSeq " +
+           "FROM ChatRoomMember crm JOIN crm.chatRoom cr " +
+           "WHERE crm.organizationMembership.user.id = :userId " +
+           "AND cr.organization.id = :orgId AND cr.deletedAt IS NULL")
+    List<UnreadCounter> findUnreadCounters(
+        @Param("userId") Long userId,
+        @Param("orgId") Long organizationId
+    );
 
     @Modifying(clearAutomatically = true)
     @Transactional
@@ -1,19 +1,41 @@
 package com.melon.app.repository.chat;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.melon.app.entity.chat.ChatRoom;
 import com.melon.app.entity.chat.ChatRoomMember;
+import com.melon.app.entity.chat.ChatType;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ChatRoomRepository extends JpaRepository<ChatRoom, Long> {
+    /**
+     * Room list row for a single member: room metadata, member count and the counters
+     * needed for the unread badge and last message preview.
+     */
+    interface ChatRoomSummary {
+        Long getId();
+        String getName();
+        Long getOrganizationId();
+        String getOrganizationName();
+        ChatType getType();
+        LocalDateTime getCreatedAt();
+        Long getMemberCount();
+        Long getMessageSeq();
+        Long getLastReadSeq();
+        Long getLastMessageId();
+    }
+
     List<ChatRoom> findByOrganizationId(Long organizationId);
+
+    Optional<ChatRoom> findByIdAndDeletedAtIsNull(Long id);
     
     @Query("SELECT cr FROM ChatRoom cr " +
            "JOIN cr.members m " +
@@ -24,6 +46,18 @@ public interface ChatRoomRepository extends JpaRepository<ChatRoom, Long> {
         @Param("orgId") Long organizationId
     );
 
+    @Query("SELECT cr.id AS id, cr.name AS name, o.id AS organizationId, " +
+           "o.organizationName AS organizationName, cr.type AS type, cr.createdAt AS createdAt, " +
+           "(SELECT COUNT(m) FROM ChatRoomMember m WHERE m.chatRoom = cr) AS memberCount, " +
+           "cr.messageSeq AS messageSeq, crm.lastReadSeq AS lastReadSeq, cr.lastMessageId AS lastMessageId " +
+           "FROM ChatRoomMember crm JOIN crm.chatRoom cr JOIN cr.organization o " +
+           "WHERE crm.organizationMembership.user.id = :userId AND o.id = :orgId AND cr.deletedAt IS NULL " +
+           "ORDER BY cr.createdAt ASC")
+    List<ChatRoomSummary> findUserChatRoomSummaries(
+        @Param("userId") Long userId,
+        @Param("orgId") Long organizationId
+    );
+
     @Query("SELECT m FROM ChatRoomMember m " +
            "WHERE m.chatRoom.id = :chatRoomId " +
            "AND m.organizationMembership.user.id = :userId")
@@ -32,5 +66,28 @@ public interface ChatRoomRepository extends JpaRepository<ChatRoom, Long> {
         @Param("userId") Long userId
     );
 
+    @Query("SELECT cr.organization.id FROM ChatRoom cr WHERE cr.id = :chatRoomId AND cr.deletedAt IS NULL")
+    Optional<Long> findOrganizationId(@Param("chatRoomId") Long chatRoomId);
+
+    @Query("SELECT cr.messageSeq FROM ChatRoom cr WHERE cr.id = :chatRoomId")
+    Optional<Long> findMessageSeq(@Param("chatRoomId") Long chatRoomId);
+
+    // Called after MessageSequencer.allocate, under the room row lock it holds until commit,
+    // so a room's messages are recorded in the order they were inserted
+    @Modifying
+    @Query("UPDATE ChatRoom cr SET cr.lastMessageId = :messageId WHERE cr.id = :chatRoomId")
+    int recordLastMessage(
+        @Param("chatRoomId") Long chatRoomId,
+        @Param("messageId") Long lastMessageId
+    );
+
+    // Hides the room everywhere; only succeeds once, for a room that is not already deleted
+    @Modifying
+    @Query("UPDATE ChatRoom cr SET cr.deletedAt = :deletedAt WHERE cr.id = :chatRoomId AND cr.deletedAt IS NULL")
+    int markDeleted(
+        @Param("chatRoomId") Long chatRoomId,
+        @Param("deletedAt") LocalDateTime deletedAt
+    );
+
     void deleteById(Long id);
 }
@@ -0,0 +1,27 @@
+package com.melon.app.repository.chat;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.melon.app.entity.chat.MessageReaction;
+
+@Repository
+public interface MessageReactionRepository extends JpaRepository<MessageReaction, Long> {
+    Optional<MessageReaction> findByMessageIdAndUserId(Long messageId, Long userId);
+
+    interface OwnReactions {
+        Long getMessageId();
+        int getReactions();
+    }
+
+    // One query per page of messages; an index lookup on uk_message_reactions_user_message
+    @Query("SELECT r.messageId AS messageId, r.reactions AS reactions FROM MessageReaction r " +
+           "WHERE r.userId = :userId AND r.messageId IN :messageIds AND r.reactions <> 0")
+    List<OwnReactions> findOwnReactions(@Param("userId") Long userId, @Param("messageIds") Collection<Long> messageIds);
+}
@@ -1,41 +1,112 @@
 package com.melon.app.repository.chat;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
-import org.springframework.transaction.annotation.Transactional;
 
 import com.melon.app.entity.chat.Message;
 
+import jakarta.persistence.LockModeType;
+
 @Repository
 public interface MessageRepository extends JpaRepository<Message, Long> {
-    List<Message> findByChatRoomIdOrderBySentAtAsc(Long chatRoomId);
-    
-    @Query("SELECT m FROM Message m " +
-           "WHERE m.chatRoom.id = :chatRoomId " +
-           "AND m.sentAt > :since " +
-           "ORDER BY m.sentAt ASC")
-    List<Message> findRecentMessages(
+    // Keyset pagination over top-level messages by (chat_room_id, parent_id, sent_at, id). Pages
+    // are returned newest first for "latest" and "before" so the LIMIT cuts off the oldest rows;
+    // callers reverse them. Senders are fetched in the same query since every rendered message
+    // needs its username.
+    @Query("SELECT m FROM Message m JOIN FETCH m.sender " +
+           "WHERE m.chatRoom.id = :chatRoomId AND m.parentId IS NULL " +
+           "ORDER BY m.sentAt DESC, m.id DESC")
+    Slice<Message> findLatestPage(@Param("chatRoomId") Long chatRoomId, Pageable pageable);
+
+    @Query("SELECT m FROM Message m JOIN FETCH m.sender " +
+           "WHERE m.chatRoom.id = :chatRoomId AND m.parentId IS NULL " +
+           "AND (m.sentAt < :sentAt OR (m.sentAt = :sentAt AND m.id < :id)) " +
+           "ORDER BY m.sentAt DESC, m.id DESC")
+    Slice<Message> findPageBefore(
         @Param("chatRoomId") Long chatRoomId,
-        @Param("since") LocalDateTime since
+        @Param("sentAt") LocalDateTime sentAt,
+        @Param("id") Long id,
+        Pageable pageable
+    );
+
+    @Query("SELECT m FROM Message m JOIN FETCH m.sender " +
+           "WHERE m.chatRoom.id = :chatRoomId AND m.parentId IS NULL " +
+           "AND (m.sentAt > :sentAt OR (m.sentAt = :sentAt AND m.id > :id)) " +
+           "ORDER BY m.sentAt ASC, m.id ASC")
+    Slice<Message> findPageAfter(
+        @Param("chatRoomId") Long chatRoomId,
+        @Param("sentAt") LocalDateTime sentAt,
+        @Param("id") Long id,
+        Pageable pageable
     );
     
-    // For unread message counts
-    @Query("SELECT COUNT(m) FROM Message m " +
-           "WHERE m.chatRoom.id = :chatRoomId " +
-           "AND m.sentAt > :lastRead")
-    long countUnreadMessages(
+    // Range scan on uk_messages_room_seq. Replies are included since they are numbered too
+    @Query("SELECT m FROM Message m JOIN FETCH m.sender " +
+           "WHERE m.chatRoom.id = :chatRoomId AND m.seq > :seq " +
+           "ORDER BY m.seq ASC")
+    Slice<Message> findPageAfterSeq(
+        @Param("chatRoomId") Long chatRoomId,
+        @Param("seq") long seq,
+        Pageable pageable
+    );
+
+    // A thread's replies oldest first, by the same keyset as the room's history
+    @Query("SELECT m FROM Message m JOIN FETCH m.sender " +
+           "WHERE m.chatRoom.id = :chatRoomId AND m.parentId = :parentId " +
+           "ORDER BY m.sentAt ASC, m.id ASC")
+    Slice<Message> findFirstReplies(
         @Param("chatRoomId") Long chatRoomId,
-        @Param("lastRead") LocalDateTime lastRead
+        @Param("parentId") Long parentId,
+        Pageable pageable
     );
 
+    @Query("SELECT m FROM Message m JOIN FETCH m.sender " +
+           "WHERE m.chatRoom.id = :chatRoomId AND m.parentId = :parentId " +
+           "AND (m.sentAt > :sentAt OR (m.sentAt = :sentAt AND m.id > :id)) " +
+           "ORDER BY m.sentAt ASC, m.id ASC")
+    Slice<Message> findRepliesAfter(
+        @Param("chatRoomId") Long chatRoomId,
+        @Param("parentId") Long parentId,
+        @Param("sentAt") LocalDateTime sentAt,
+        @Param("id") Long id,
+        Pageable pageable
+    );
+
+    /**
+     * Counts a new reply on its parent. Only top-level messages still in the table can be
+     * replied to.
+     * @return 0 if there is no such parent
+     */
     @Modifying
-    @Transactional
-    @Query("DELETE FROM Message m WHERE m.chatRoom.id = :chatRoomId")
-    void deleteAllByChatRoomId(Long chatRoomId);
-}
\ No newline at end of file
+    @Query("UPDATE Message m SET m.replyCount = COALESCE(m.replyCount, 0) + 1, " +
+           "m.lastReplyId = CASE WHEN m.lastReplyId IS NULL OR m.lastReplyId < :replyId THEN :replyId ELSE m.lastReplyId END " +
+           "WHERE m.id = :parentId AND m.chatRoom.id = :chatRoomId AND m.parentId IS NULL")
+    int recordReply(@Param("chatRoomId") Long chatRoomId, @Param("parentId") Long parentId, @Param("replyId") Long replyId);
+
+    @Query("SELECT m FROM Message m JOIN FETCH m.sender WHERE m.id IN :ids")
+    List<Message> findAllWithSenderByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT m FROM Message m JOIN FETCH m.sender " +
+           "WHERE m.chatRoom.id = :chatRoomId AND m.sender.id = :senderId AND m.clientMessageId = :clientMessageId")
+    Optional<Message> findByClientMessageId(
+        @Param("chatRoomId") Long chatRoomId,
+        @Param("senderId") Long senderId,
+        @Param("clientMessageId") String clientMessageId
+    );
+
+    // Serializes changes to the message's reaction counters
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM Message m WHERE m.id = :id AND m.chatRoom.id = :chatRoomId")
+    Optional<Message> findForUpdate(@Param("chatRoomId") Long chatRoomId, @Param("id") Long id);
+}
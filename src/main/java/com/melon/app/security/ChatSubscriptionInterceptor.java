@@ -0,0 +1,74 @@
+package com.melon.app.security;
+
+import java.security.Principal;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import com.melon.app.config.WebSocketConfig;
+import com.melon.app.entity.User;
+import com.melon.app.service.chat.ChatMembershipIndex;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Authorizes inbound STOMP frames. The WebSocket handshake has already been authenticated
+ * by {@link JwtAuthenticationFilter}; this makes sure a session can only subscribe to the
+ * topics of chat rooms its user is a member of.
+ */
+@Component
+@RequiredArgsConstructor
+public class ChatSubscriptionInterceptor implements ChannelInterceptor {
+    private final ChatMembershipIndex membershipIndex;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+
+        StompCommand command = accessor.getCommand();
+        if (command == StompCommand.CONNECT) {
+            currentUser(accessor.getUser());
+        } else if (command == StompCommand.SUBSCRIBE) {
+            User user = currentUser(accessor.getUser());
+            Long chatRoomId = parseChatRoomId(accessor.getDestination());
+            membershipIndex.requireMember(chatRoomId, user.getId());
+        } else if (command == StompCommand.SEND) {
+            // Messages are sent through the REST API so they are validated and persisted first
+            throw new AccessDeniedException("Sending over the socket is not supported");
+        }
+        return message;
+    }
+
+    private User currentUser(Principal principal) {
+        if (principal instanceof Authentication auth && auth.getPrincipal() instanceof User user) {
+            return user;
+        }
+        throw new AccessDeniedException("Unauthenticated WebSocket session");
+    }
+
+    private Long parseChatRoomId(String destination) {
+        String prefix = WebSocketConfig.CHAT_ROOM_TOPIC_PREFIX;
+        if (destination == null || !destination.startsWith(prefix)) {
+            throw new AccessDeniedException("Unknown destination");
+        }
+        try {
+            String chatRoomId = destination.substring(prefix.length());
+            if (chatRoomId.endsWith(WebSocketConfig.REACTIONS_TOPIC_SUFFIX)) {
+                chatRoomId = chatRoomId.substring(0, chatRoomId.length() - WebSocketConfig.REACTIONS_TOPIC_SUFFIX.length());
+            }
+            return Long.parseLong(chatRoomId);
+        } catch (NumberFormatException e) {
+            throw new AccessDeniedException("Unknown destination");
+        }
+    }
+}
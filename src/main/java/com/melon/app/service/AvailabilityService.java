@@ -0,0 +1,105 @@
+package com.melon.app.service;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+
+import com.melon.app.controller.DTO.AvailabilityDTO;
+import com.melon.app.controller.DTO.FreeWindowDTO;
+import com.melon.app.entity.OrganizationMembershipId;
+import com.melon.app.repository.OrganizationMembershipRepository;
+import com.melon.app.service.schedule.AvailabilityIndex;
+import com.melon.app.service.schedule.OrganizationAvailability;
+import com.melon.app.service.schedule.WeekSlots;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Organization availability computed on the server from each member's weekly busy bitset,
+ * so clients receive one count per slot rather than every member's schedule entries. Heatmaps
+ * come from the maintained per-organization counts in {@link OrganizationAvailability}.
+ */
+@Service
+@RequiredArgsConstructor
+public class AvailabilityService {
+    private final AvailabilityIndex availabilityIndex;
+    private final OrganizationAvailability organizationAvailability;
+    private final OrganizationMembershipRepository organizationMembershipRepository;
+
+    /**
+     * @param userId the requesting user, who must be a member of the organization
+     */
+    public AvailabilityDTO getHeatmap(Long organizationId, Long userId) {
+        requireOrganizationMember(organizationId, userId);
+
+        OrganizationAvailability.Snapshot snapshot = organizationAvailability.get(organizationId);
+        return new AvailabilityDTO(WeekSlots.SLOT_MINUTES, snapshot.memberCount(), snapshot.busyCounts());
+    }
+
+    /**
+     * Finds the windows of the week in which all of the given members are free, by OR-ing their
+     * busy bitsets and scanning the complement a word at a time. Windows are slot aligned: a
+     * bound that falls inside a slot excludes that slot.
+     * @param memberIds members of the organization to plan for; all must be members
+     * @param minMinutes shortest window to return
+     * @param days the days to search, or null for every day
+     * @param dayStartMinute earliest minute of each day to include (0 for midnight)
+     * @param dayEndMinute minute of each day to stop at (1440 for midnight)
+     * @return the windows in week order
+     */
+    public List<FreeWindowDTO> findFreeWindows(Long organizationId, Long userId, Collection<Long> memberIds,
+                                               int minMinutes, Set<DayOfWeek> days, int dayStartMinute, int dayEndMinute) {
+        requireOrganizationMember(organizationId, userId);
+        if (organizationMembershipRepository.countByOrganizationIdAndUserIdIn(organizationId, memberIds) != memberIds.size()) {
+            throw new AccessDeniedException("Not every user is a member of this organization");
+        }
+
+        long[] free = WeekSlots.empty();
+        int firstSlot = (dayStartMinute + WeekSlots.SLOT_MINUTES - 1) / WeekSlots.SLOT_MINUTES;
+        int lastSlot = dayEndMinute / WeekSlots.SLOT_MINUTES;
+        for (DayOfWeek day : days != null ? days : Set.of(DayOfWeek.values())) {
+            int dayOffset = day.ordinal() * WeekSlots.SLOTS_PER_DAY;
+            WeekSlots.setRange(free, dayOffset + firstSlot, dayOffset + lastSlot);
+        }
+        for (long[] busy : availabilityIndex.busy(memberIds).values()) {
+            for (int word = 0; word < WeekSlots.WORDS; word++) {
+                free[word] &= ~busy[word];
+            }
+        }
+
+        int minSlots = Math.max(1, (minMinutes + WeekSlots.SLOT_MINUTES - 1) / WeekSlots.SLOT_MINUTES);
+        List<FreeWindowDTO> windows = new ArrayList<>();
+        for (int start = WeekSlots.nextSetSlot(free, 0); start < WeekSlots.SLOTS; ) {
+            int end = WeekSlots.nextClearSlot(free, start);
+            if (end - start >= minSlots) {
+                windows.add(toWindow(start * WeekSlots.SLOT_MINUTES, end * WeekSlots.SLOT_MINUTES));
+            }
+            start = WeekSlots.nextSetSlot(free, end);
+        }
+        return windows;
+    }
+
+    private static FreeWindowDTO toWindow(int startMinute, int endMinute) {
+        int startDay = startMinute / (24 * 60);
+        // Ends are exclusive, so a window ending at midnight belongs to the day before
+        int endDay = (endMinute - 1) / (24 * 60);
+        return new FreeWindowDTO(startMinute, endMinute,
+            DayOfWeek.values()[startDay].name(), formatTime(startMinute - startDay * 24 * 60),
+            DayOfWeek.values()[endDay].name(), formatTime(endMinute - endDay * 24 * 60));
+    }
+
+    private static String formatTime(int minuteOfDay) {
+        return String.format("%02d:%02d", minuteOfDay / 60, minuteOfDay % 60);
+    }
+
+    private void requireOrganizationMember(Long organizationId, Long userId) {
+        if (!organizationMembershipRepository.existsById(new OrganizationMembershipId(userId, organizationId))) {
+            throw new AccessDeniedException("User is not a member of this organization");
+        }
+    }
+}
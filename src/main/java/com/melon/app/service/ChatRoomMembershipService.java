@@ -1,15 +1,21 @@
 package com.melon.app.service;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
 
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
-import com.melon.app.entity.Organization;
 import com.melon.app.entity.Role;
 import com.melon.app.entity.chat.ChatRoom;
 import com.melon.app.entity.chat.ChatRoomMember;
+import com.melon.app.exception.ChatRoomNotFoundException;
+import com.melon.app.exception.InvalidRequestException;
 import com.melon.app.repository.chat.ChatRoomMemberRepository;
 import com.melon.app.repository.chat.ChatRoomRepository;
+import com.melon.app.service.chat.ChatMembershipIndex;
 
 import org.springframework.transaction.annotation.Transactional;
 import lombok.RequiredArgsConstructor;
@@ -17,30 +23,54 @@ import lombok.RequiredArgsConstructor;
 @Service
 @RequiredArgsConstructor
 public class ChatRoomMembershipService {
+    private static final String INSERT_MEMBER_SQL =
+        "INSERT INTO chat_room_members (chat_room_id, user_id, organization_id, last_read, last_read_seq) " +
+        "VALUES (?, ?, ?, ?, ?)";
+    private static final int INSERT_BATCH_SIZE = 500;
+
     private final ChatRoomMemberRepository chatRoomMemberRepository;
     private final ChatRoomRepository chatRoomRepository;
-    private final OrganizationService organizationService;
+    private final ChatMembershipIndex membershipIndex;
+    private final JdbcTemplate jdbcTemplate;
 
+    /**
+     * Adds every organization member whose role qualifies to the chat room. The members still
+     * missing from the room are found with one query and inserted with batched JDBC statements,
+     * so large organizations do not turn into one select and insert per member.
+     * @return the number of members that were added
+     */
     @Transactional
-    public void addMembersByCriteria(Long chatRoomId, Long organizationId, Role minimumRole) {
-        ChatRoom chatRoom = chatRoomRepository.findById(chatRoomId)
-                .orElseThrow(() -> new RuntimeException("Chat room not found"));
-
-        Organization organization = organizationService.getOrganizationById(organizationId);
-
-        // Add all org members that meet the role criteria
-        organization.getMemberships().stream()
-                .filter(m -> m.getRole().ordinal() >= minimumRole.ordinal())
-                .forEach(membership -> {
-                    // Check if not already a member
-                    boolean isMember = chatRoom.getMembers().stream()
-                            .anyMatch(m -> m.getOrganizationMembership().equals(membership));
-
-                    if (!isMember) {
-                        ChatRoomMember member = new ChatRoomMember(chatRoom, membership);
-                        chatRoomMemberRepository.save(member);
-                    }
-                });
+    public int addMembersByCriteria(Long chatRoomId, Long organizationId, Role minimumRole) {
+        ChatRoom chatRoom = chatRoomRepository.findByIdAndDeletedAtIsNull(chatRoomId)
+                .orElseThrow(() -> new ChatRoomNotFoundException("Chat room not found"));
+
+        if (!chatRoom.getOrganization().getId().equals(organizationId)) {
+            throw new InvalidRequestException("Chat room does not belong to the specified organization");
+        }
+
+        // Roles are declared from most to least privileged
+        List<Role> roles = Arrays.stream(Role.values())
+                .filter(role -> role.ordinal() >= minimumRole.ordinal())
+                .toList();
+
+        List<Long> userIds = chatRoomMemberRepository.findMissingMemberUserIds(chatRoomId, organizationId, roles);
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+
+        // New members start with the existing history marked as read
+        Timestamp lastRead = Timestamp.valueOf(LocalDateTime.now());
+        long lastReadSeq = chatRoom.getMessageSeq() != null ? chatRoom.getMessageSeq() : 0L;
+        jdbcTemplate.batchUpdate(INSERT_MEMBER_SQL, userIds, INSERT_BATCH_SIZE, (ps, userId) -> {
+            ps.setLong(1, chatRoomId);
+            ps.setLong(2, userId);
+            ps.setLong(3, organizationId);
+            ps.setTimestamp(4, lastRead);
+            ps.setLong(5, lastReadSeq);
+        });
+
+        membershipIndex.membersChanged(chatRoomId);
+        return userIds.size();
     }
 
     @Transactional
@@ -48,11 +78,16 @@ public class ChatRoomMembershipService {
         ChatRoomMember member = chatRoomMemberRepository.findByUserAndChatRoom(userId, chatRoomId);
         if (member != null) {
             chatRoomMemberRepository.delete(member);
+            membershipIndex.membersChanged(chatRoomId);
         }
     }
 
+    /**
+     * Loads a room's full member list with users in one query. Only available to members of the room.
+     */
     @Transactional(readOnly = true)
-    public List<ChatRoomMember> getChatRoomMembers(Long chatRoomId) {
-        return chatRoomMemberRepository.findByChatRoomId(chatRoomId);
+    public List<ChatRoomMember> getChatRoomMembers(Long chatRoomId, Long userId) {
+        membershipIndex.requireMember(chatRoomId, userId);
+        return chatRoomMemberRepository.findWithUsersByChatRoomId(chatRoomId);
     }
 }
\ No newline at end of file
@@ -1,5 +1,12 @@
 package com.melon.app.service;
 
+import com.melon.app.controller.DTO.ChatRoomDTO;
+import com.melon.app.controller.DTO.MessageCursor;
+import com.melon.app.controller.DTO.ChatRoomDTO.ChatRoomDeletionDTO;
+import com.melon.app.controller.DTO.ChatRoomDTO.MessageDTO;
+import com.melon.app.controller.DTO.ChatRoomDTO.MessagePageDTO;
+import com.melon.app.controller.DTO.ChatRoomDTO.MessageSearchPageDTO;
+import com.melon.app.controller.DTO.ChatRoomDTO.MessageSearchResultDTO;
 import com.melon.app.entity.Organization;
 import com.melon.app.entity.OrganizationMembership;
 import com.melon.app.entity.Role;
@@ -7,15 +14,44 @@ import com.melon.app.entity.User;
 import com.melon.app.entity.chat.*;
 import com.melon.app.exception.ChatRoomNotFoundException;
 import com.melon.app.exception.InvalidRequestException;
-import com.melon.app.repository.UserRepository;
 import com.melon.app.repository.chat.*;
+import com.melon.app.repository.chat.ChatRoomRepository.ChatRoomSummary;
+import com.melon.app.service.chat.ChatMembershipIndex;
+import com.melon.app.service.chat.ChatMessageSentEvent;
+import com.melon.app.service.chat.ChatRoomDeletedEvent;
+import com.melon.app.service.chat.ChatRoomPurger;
+import com.melon.app.service.chat.MessageDedupCache;
+import com.melon.app.service.chat.MessageHistory;
+import com.melon.app.service.chat.MessageHistory.HistoryPage;
+import com.melon.app.service.chat.MessagePollRegistry;
+import com.melon.app.service.chat.MessageSequencer;
+import com.melon.app.service.chat.MessageWriteBehindQueue;
+import com.melon.app.service.chat.ReadMarkerBuffer;
+import com.melon.app.service.chat.RecentMessageCache;
+import com.melon.app.service.chat.RecentMessageCache.CachedMessage;
+import com.melon.app.service.chat.RecentMessageCache.CachedPage;
+import com.melon.app.service.chat.search.MessageSearchIndex;
+import com.melon.app.service.chat.search.MessageSearchIndex.SearchHit;
+import com.melon.app.service.chat.search.MessageSearchIndex.SearchResult;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import lombok.RequiredArgsConstructor;
@@ -25,15 +61,55 @@ import org.springframework.security.access.AccessDeniedException;
 @Service
 @RequiredArgsConstructor
 public class ChatService {
+    // Number of messages returned per history request
+    public static final int MESSAGE_PAGE_SIZE = 50;
+    // Number of results returned per search request
+    public static final int SEARCH_PAGE_SIZE = 20;
+
     private final ChatRoomRepository chatRoomRepository;
     private final MessageRepository messageRepository;
-    private final UserRepository userRepository;
     private final ChatRoomMemberRepository chatRoomMemberRepository;
     private final OrganizationService organizationService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RecentMessageCache recentMessageCache;
+    private final ChatMembershipIndex membershipIndex;
+    private final MessageSearchIndex messageSearchIndex;
+    private final MessageHistory messageHistory;
+    private final ChatRoomPurger chatRoomPurger;
+    private final MessagePollRegistry messagePollRegistry;
+    private final MessageWriteBehindQueue writeBehindQueue;
+    private final MessageDedupCache messageDedupCache;
+    private final ReadMarkerBuffer readMarkerBuffer;
+    private final MessageSequencer messageSequencer;
+    private final MessageReactionService messageReactionService;
+    private final TransactionTemplate transactionTemplate;
 
+    /**
+     * Lists the user's chat rooms in an organization with member counts, unread counts and a
+     * preview of the last message. Runs two queries regardless of how many rooms there are:
+     * one for the room summaries and one for all of their last messages.
+     */
     @Transactional(readOnly = true)
-    public List<ChatRoom> getUserChatRooms(Long userId, Long organizationId) {
-        return chatRoomRepository.findUserChatRoomsInOrganization(userId, organizationId);
+    public List<ChatRoomDTO> getUserChatRooms(Long userId, Long organizationId) {
+        List<ChatRoomSummary> summaries = chatRoomRepository.findUserChatRoomSummaries(userId, organizationId);
+
+        List<Long> lastMessageIds = summaries.stream()
+            .map(ChatRoomSummary::getLastMessageId)
+            .filter(Objects::nonNull)
+            .toList();
+        Map<Long, Message> lastMessages = lastMessageIds.isEmpty()
+            ? Map.of()
+            : messageRepository.findAllWithSenderByIdIn(lastMessageIds).stream()
+                .collect(Collectors.toMap(Message::getId, Function.identity()));
+
+        return summaries.stream()
+            .map(summary -> {
+                Message lastMessage = lastMessages.get(summary.getLastMessageId());
+                long lastReadSeq = readMarkerBuffer.lastReadSeq(summary.getId(), userId, summary.getLastReadSeq());
+                return ChatRoomDTO.fromSummary(summary, lastReadSeq,
+                    lastMessage != null ? MessageDTO.fromEntity(lastMessage, userId) : null);
+            })
+            .collect(Collectors.toList());
     }
 
     @Transactional
@@ -54,27 +130,45 @@ public class ChatService {
         return chatRoomRepository.save(chatRooom);
     }
 
+    /**
+     * Marks the room deleted and returns. The room disappears from every read path as soon as this
+     * commits; its messages and members are removed afterwards by {@link ChatRoomPurger}.
+     */
+    @Transactional
     public void deleteChatRoom(Long organizationId, Long roomId, Long callerId) {
         // Verify user has permissions to perform this action
         isAdmin(organizationId, callerId)
             .orElseThrow(() -> new AccessDeniedException("Unauthorized: Please contact an administrator"));
 
-        ChatRoom chatRoom = chatRoomRepository.findById(roomId)
+        ChatRoom chatRoom = chatRoomRepository.findByIdAndDeletedAtIsNull(roomId)
             .orElseThrow(() -> new ChatRoomNotFoundException("Chat room does not exist"));
 
         if (!chatRoom.getOrganization().getId().equals(organizationId)) {
             throw new InvalidRequestException("Chat room does not belong to the specified organization");
         }
 
-        // Delete messages, memberships, and chat room
-        messageRepository.deleteAllByChatRoomId(roomId);
-        chatRoomMemberRepository.deleteAllByChatRoomId(roomId);
-        chatRoomRepository.deleteById(roomId);
+        LocalDateTime deletedAt = LocalDateTime.now();
+        if (chatRoomRepository.markDeleted(roomId, deletedAt) == 0) {
+            throw new ChatRoomNotFoundException("Chat room does not exist");
+        }
+        recentMessageCache.invalidate(roomId);
+        membershipIndex.membersChanged(roomId);
+        eventPublisher.publishEvent(new ChatRoomDeletedEvent(roomId, organizationId, chatRoom.getName(), deletedAt));
+    }
+
+    /**
+     * Progress of the background purges of the organization's deleted rooms.
+     */
+    public List<ChatRoomDeletionDTO> getChatRoomDeletions(Long organizationId, Long callerId) {
+        isAdmin(organizationId, callerId)
+            .orElseThrow(() -> new AccessDeniedException("Unauthorized: Please contact an administrator"));
+
+        return chatRoomPurger.getProgress(organizationId);
     }
 
     @Transactional
     public void addMemberToChatRoom(Long chatRoomId, Long userId, Long organizationId) {
-        ChatRoom chatRoom = chatRoomRepository.findById(chatRoomId)
+        ChatRoom chatRoom = chatRoomRepository.findByIdAndDeletedAtIsNull(chatRoomId)
             .orElseThrow(() -> new ChatRoomNotFoundException("Chat room not found"));
 
         Organization organization = organizationService.getOrganizationById(organizationId);
@@ -91,52 +185,327 @@ public class ChatService {
         if (existingMember.isEmpty()) {
             ChatRoomMember member = new ChatRoomMember(chatRoom, membership);
             chatRoomMemberRepository.save(member);
+            membershipIndex.membersChanged(chatRoomId);
         }
     }
 
-    @Transactional
-    public Message sendMessage(Long chatRoomId, Long senderId, String content) {
-        ChatRoom chatRoom = chatRoomRepository.findById(chatRoomId)
-            .orElseThrow(() -> new ChatRoomNotFoundException("Chat room not found"));
+    /**
+     * Persists a new message. Depending on chat.write-behind.enabled this either writes the
+     * message in its own transaction or hands it to the group-commit queue; either way it
+     * only returns once the message is committed.
+     * Not transactional itself so that waiting on the queue does not hold a connection.
+     * @param sender the authenticated user, who must be a member of the room
+     * @param clientMessageId optional id chosen by the client; sending again with the same id
+     *        returns the original message instead of storing a duplicate
+     * @param parentId the top-level message to reply to, or null for a top-level message
+     */
+    public MessageDTO sendMessage(Long chatRoomId, User sender, String content, String clientMessageId, Long parentId) {
+        membershipIndex.requireMember(chatRoomId, sender.getId());
 
-        // Verify sender is a member of the chat room
-        User sender = userRepository.findById(senderId)
-            .orElseThrow(() -> new AccessDeniedException("User is not a member of this chat room"));
+        if (clientMessageId != null) {
+            Optional<MessageDTO> original = messageDedupCache.find(chatRoomId, sender.getId(), clientMessageId);
+            if (original.isPresent()) {
+                return original.get();
+            }
+        }
+
+        MessageDTO sent;
+        try {
+            // Replies also update their parent, which the group commit does not do. Both paths
+            // number the message from the same room counter, locked by their insert transaction
+            sent = writeBehindQueue.isEnabled() && parentId == null
+                ? writeBehindQueue.submit(chatRoomId, sender, content, clientMessageId)
+                : saveMessage(chatRoomId, sender, content, clientMessageId, parentId);
+        } catch (DataIntegrityViolationException e) {
+            if (Message.violatesClientIdConstraint(e)) {
+                // A retry that got past the cache while its original was still being written
+                return findOriginal(chatRoomId, sender.getId(), clientMessageId).orElseThrow(() -> e);
+            }
+            // The room may have been deleted between the membership check and the insert;
+            // anything else is a server error
+            if (chatRoomRepository.findByIdAndDeletedAtIsNull(chatRoomId).isEmpty()) {
+                throw new ChatRoomNotFoundException("Chat room not found", e);
+            }
+            throw e;
+        }
+
+        if (clientMessageId != null) {
+            messageDedupCache.put(chatRoomId, clientMessageId, sent);
+        }
+        return sent;
+    }
+
+    private MessageDTO saveMessage(Long chatRoomId, User sender, String content, String clientMessageId, Long parentId) {
+        return transactionTemplate.execute(status ->
+            insertMessage(chatRoomId, sender, content, clientMessageId, parentId));
+    }
+
+    private MessageDTO insertMessage(Long chatRoomId, User sender, String content, String clientMessageId,
+                                     Long parentId) {
+        // Holds the room row lock until commit; fails if the room was deleted since the membership check
+        long seq = messageSequencer.allocate(chatRoomId, 1);
+
+        // Membership is already verified, so neither the room nor the sender needs loading
+        ChatRoom chatRoom = chatRoomRepository.getReferenceById(chatRoomId);
 
         Message message = new Message(chatRoom, sender, content);
-        return messageRepository.save(message);
+        message.setSeq(seq);
+        message.setClientMessageId(clientMessageId);
+        message.setParentId(parentId);
+        messageRepository.save(message);
+        // Rolls the reply back if its parent is a reply, archived or in another room
+        if (parentId != null && messageRepository.recordReply(chatRoomId, parentId, message.getId()) == 0) {
+            throw new ChatRoomNotFoundException("Message not found");
+        }
+        chatRoomRepository.recordLastMessage(chatRoomId, message.getId());
+
+        // Delivered to subscribers once the transaction commits
+        eventPublisher.publishEvent(new ChatMessageSentEvent(chatRoomId, MessageDTO.fromEntity(message, null)));
+        return MessageDTO.fromEntity(message, sender.getId());
     }
 
+    private Optional<MessageDTO> findOriginal(Long chatRoomId, Long senderId, String clientMessageId) {
+        if (clientMessageId == null) {
+            return Optional.empty();
+        }
+        Optional<MessageDTO> original = messageRepository.findByClientMessageId(chatRoomId, senderId, clientMessageId)
+            .map(message -> MessageDTO.fromEntity(message, senderId));
+        original.ifPresent(message -> messageDedupCache.put(chatRoomId, clientMessageId, message));
+        return original;
+    }
+
+    /**
+     * Fetches one page of a chat room's history using keyset pagination.
+     * With no cursor the most recent page is returned; at most one of before/after may be set.
+     * @param chatRoomId
+     * @param userId the requesting user, who must be a member of the room
+     * @param before return messages older than this cursor (scrolling back through history)
+     * @param after return messages newer than this cursor (catching up)
+     * @return the page in display order along with cursors for continuing
+     */
     @Transactional(readOnly = true)
-    public List<Message> getChatRoomMessages(Long chatRoomId, Long userId) {
-        // Verify user is a member of the chat room
-        ChatRoomMember member = chatRoomMemberRepository.findByUserAndChatRoom(userId, chatRoomId);
-        if (member == null) {
-            throw new AccessDeniedException("User is not a member of this chat room");
+    public MessagePageDTO getChatRoomMessages(Long chatRoomId, Long userId, MessageCursor before, MessageCursor after) {
+        membershipIndex.requireMember(chatRoomId, userId);
+
+        if (after != null) {
+            return getMessagesAfter(chatRoomId, userId, after);
+        }
+
+        if (before == null) {
+            return getLatestMessages(chatRoomId, userId);
         }
 
-        return messageRepository.findByChatRoomIdOrderBySentAtAsc(chatRoomId);
+        HistoryPage page = messageHistory.before(chatRoomId, before, MESSAGE_PAGE_SIZE);
+        List<CachedMessage> messages = page.messages();
+
+        String next = page.hasMore() ? cursorOf(messages.get(0)) : null;
+        String prev = messages.isEmpty() ? before.encode() : cursorOf(messages.get(messages.size() - 1));
+        return new MessagePageDTO(toDtos(messages, userId), next, prev, page.hasMore());
     }
 
-    @Transactional
-    public void updateLastRead(Long chatRoomId, Long userId) {
-        ChatRoomMember member = chatRoomMemberRepository.findByUserAndChatRoom(userId, chatRoomId);
-        if (member == null) {
-            throw new AccessDeniedException("User is not a member of this chat room");
+    /**
+     * Catch-up read. Clients that are nearly up to date are served from the in-memory cache.
+     */
+    private MessagePageDTO getMessagesAfter(Long chatRoomId, Long userId, MessageCursor after) {
+        CachedPage cached = recentMessageCache.after(chatRoomId, after, MESSAGE_PAGE_SIZE).orElse(null);
+        HistoryPage page = cached != null
+            ? new HistoryPage(cached.messages(), cached.hasMore())
+            : messageHistory.after(chatRoomId, after, MESSAGE_PAGE_SIZE);
+        List<CachedMessage> messages = page.messages();
+
+        // Keep handing back the caller's position when there is nothing new yet
+        String next = messages.isEmpty() ? after.encode() : cursorOf(messages.get(messages.size() - 1));
+        String prev = messages.isEmpty() ? null : cursorOf(messages.get(0));
+        return new MessagePageDTO(toDtos(messages, userId), next, prev, page.hasMore());
+    }
+
+    /**
+     * Sync read by sequence number: the messages numbered after {@code afterSeq}, in sequence
+     * order. Clients that notice a gap in the numbers they hold ask for everything after the
+     * last number before it. Reads the messages table only, so messages that have already
+     * been archived are not returned; clients that far behind reload with cursors instead.
+     */
+    @Transactional(readOnly = true)
+    public MessagePageDTO getChatRoomMessagesAfterSeq(Long chatRoomId, Long userId, long afterSeq) {
+        membershipIndex.requireMember(chatRoomId, userId);
+
+        Slice<Message> slice = messageRepository.findPageAfterSeq(chatRoomId, afterSeq, PageRequest.ofSize(MESSAGE_PAGE_SIZE));
+        List<MessageDTO> messages = toDtos(messageHistory.fromTable(slice.getContent()), userId);
+
+        String next = messages.isEmpty() ? null : cursorOf(messages.get(messages.size() - 1));
+        String prev = messages.isEmpty() ? null : cursorOf(messages.get(0));
+        return new MessagePageDTO(messages, next, prev, slice.hasNext());
+    }
+
+    /**
+     * One page of a thread's replies, oldest first. Loaded separately from the room's history,
+     * whose pages only carry each thread's reply count and newest reply.
+     * @param after continue after this cursor, or null for the first replies
+     */
+    @Transactional(readOnly = true)
+    public MessagePageDTO getThreadReplies(Long chatRoomId, Long parentId, Long userId, MessageCursor after) {
+        membershipIndex.requireMember(chatRoomId, userId);
+
+        PageRequest pageRequest = PageRequest.ofSize(MESSAGE_PAGE_SIZE);
+        Slice<Message> slice = after == null
+            ? messageRepository.findFirstReplies(chatRoomId, parentId, pageRequest)
+            : messageRepository.findRepliesAfter(chatRoomId, parentId, after.sentAt(), after.id(), pageRequest);
+        List<MessageDTO> messages = toDtos(messageHistory.fromTable(slice.getContent()), userId);
+
+        // Keep handing back the caller's position when there is nothing new yet
+        String next = messages.isEmpty()
+            ? (after != null ? after.encode() : null)
+            : cursorOf(messages.get(messages.size() - 1));
+        String prev = messages.isEmpty() ? null : cursorOf(messages.get(0));
+        return new MessagePageDTO(messages, next, prev, slice.hasNext());
+    }
+
+    /**
+     * Long-poll variant of reading with an after cursor, for clients that cannot keep a WebSocket
+     * open. If the room already has newer messages they are delivered right away; otherwise the
+     * poll is parked until a message is sent to the room. Parking holds no request thread.
+     * @param onMessages called once with the first non-empty page, possibly on another thread
+     * @return cancels the poll; must be run when the request completes or times out
+     */
+    public Runnable pollMessages(Long chatRoomId, Long userId, MessageCursor after, Consumer<MessagePageDTO> onMessages) {
+        membershipIndex.requireMember(chatRoomId, userId);
+
+        AtomicBoolean delivered = new AtomicBoolean();
+        Runnable check = () -> {
+            // A member removed while parked stops receiving; the poll then times out empty
+            if (delivered.get() || !membershipIndex.isMember(chatRoomId, userId)) {
+                return;
+            }
+            MessagePageDTO page = getMessagesAfter(chatRoomId, userId, after);
+            if (!page.getMessages().isEmpty() && delivered.compareAndSet(false, true)) {
+                onMessages.accept(page);
+            }
+        };
+
+        // Registered before the first read so a message committed in between still wakes the poll
+        Runnable cancel = messagePollRegistry.register(chatRoomId, check);
+        try {
+            check.run();
+        } catch (RuntimeException e) {
+            cancel.run();
+            throw e;
+        }
+        if (delivered.get()) {
+            cancel.run();
+        }
+        return cancel;
+    }
+
+    /**
+     * Serves the most recent page from the in-memory cache, filling it from the database on a miss.
+     */
+    private MessagePageDTO getLatestMessages(Long chatRoomId, Long userId) {
+        CachedPage cached = recentMessageCache.latest(chatRoomId, MESSAGE_PAGE_SIZE).orElse(null);
+
+        if (cached == null) {
+            long token = recentMessageCache.beginFill(chatRoomId);
+            HistoryPage page = messageHistory.before(chatRoomId, null, MESSAGE_PAGE_SIZE);
+            recentMessageCache.fill(chatRoomId, token, page.messages(), page.hasMore());
+            cached = new CachedPage(page.messages(), page.hasMore());
         }
 
-        member.setLastRead(LocalDateTime.now());
-        chatRoomMemberRepository.save(member);
+        List<CachedMessage> messages = cached.messages();
+        String next = cached.hasMore() ? cursorOf(messages.get(0)) : null;
+        String prev = messages.isEmpty() ? null : cursorOf(messages.get(messages.size() - 1));
+        return new MessagePageDTO(toDtos(messages, userId), next, prev, cached.hasMore());
     }
 
+    /**
+     * Full-text search over the messages of the user's chat rooms in an organization.
+     * @param chatRoomId restricts the search to one room, or null for all of the user's rooms
+     * @param page zero-based page of results, best match first
+     */
     @Transactional(readOnly = true)
-    public long getUnreadMessageCount(Long chatRoomId, Long userId) {
-        ChatRoomMember member = chatRoomMemberRepository.findByUserAndChatRoom(userId, chatRoomId);
-        if (member == null) {
-            throw new AccessDeniedException("User is not a member of this chat room");
+    public MessageSearchPageDTO searchMessages(Long userId, Long organizationId, Long chatRoomId, String query, int page) {
+        List<Long> chatRoomIds = chatRoomMemberRepository.findChatRoomIdsByOrganizationIdAndUserId(organizationId, userId);
+        if (chatRoomId != null) {
+            if (!chatRoomIds.contains(chatRoomId)) {
+                throw new AccessDeniedException("User is not a member of this chat room");
+            }
+            chatRoomIds = List.of(chatRoomId);
         }
 
-        return messageRepository.countUnreadMessages(chatRoomId, member.getLastRead());
+        SearchResult result = messageSearchIndex.search(chatRoomIds, query, page * SEARCH_PAGE_SIZE, SEARCH_PAGE_SIZE);
+        List<Long> messageIds = result.hits().stream().map(SearchHit::messageId).toList();
+        Map<Long, CachedMessage> messages = new HashMap<>();
+        if (!messageIds.isEmpty()) {
+            for (Message message : messageRepository.findAllWithSenderByIdIn(messageIds)) {
+                messages.put(message.getId(), CachedMessage.fromDto(MessageDTO.fromEntity(message, null)));
+            }
+        }
+
+        // Hits that are no longer in the table may have been archived
+        Map<Long, List<Long>> missingByRoom = result.hits().stream()
+            .filter(hit -> !messages.containsKey(hit.messageId()))
+            .collect(Collectors.groupingBy(SearchHit::chatRoomId,
+                Collectors.mapping(SearchHit::messageId, Collectors.toList())));
+        missingByRoom.forEach((roomId, ids) ->
+            messageHistory.findArchived(roomId, ids).forEach(message -> messages.put(message.id(), message)));
+
+        // Keep the ranking order; skip hits whose message has since been deleted
+        List<MessageSearchResultDTO> results = result.hits().stream()
+            .filter(hit -> messages.containsKey(hit.messageId()))
+            .map(hit -> new MessageSearchResultDTO(hit.chatRoomId(), messages.get(hit.messageId()).toDto(userId)))
+            .collect(Collectors.toList());
+        messageReactionService.markOwnReactions(
+            results.stream().map(MessageSearchResultDTO::getMessage).toList(), userId);
+
+        boolean hasMore = (long) (page + 1) * SEARCH_PAGE_SIZE < result.totalHits();
+        return new MessageSearchPageDTO(results, page, result.totalHits(), hasMore);
+    }
+
+    /**
+     * Marks everything currently in the room as read. The marker is buffered and written in
+     * the background by {@link ReadMarkerBuffer}; unread counts reflect it straight away.
+     */
+    public void updateLastRead(Long chatRoomId, Long userId) {
+        membershipIndex.requireMember(chatRoomId, userId);
+
+        long messageSeq = chatRoomRepository.findMessageSeq(chatRoomId)
+            .orElseThrow(() -> new ChatRoomNotFoundException("Chat room not found"));
+        readMarkerBuffer.markRead(chatRoomId, userId, messageSeq, LocalDateTime.now());
+    }
+
+    @Transactional(readOnly = true)
+    public long getUnreadMessageCount(Long chatRoomId, Long userId) {
+        ChatRoomMemberRepository.UnreadCounter counter = chatRoomMemberRepository.findUnreadCounter(userId, chatRoomId)
+            .orElseThrow(() -> new AccessDeniedException("User is not a member of this chat room"));
+
+        return counter.getUnreadCount(readMarkerBuffer.lastReadSeq(chatRoomId, userId, counter.getLastReadSeq()));
+    }
+
+    private List<MessageDTO> toDtos(List<CachedMessage> messages, Long userId) {
+        return messageReactionService.markOwnReactions(messages.stream()
+            .map(message -> message.toDto(userId))
+            .collect(Collectors.toList()), userId);
+    }
+
+    private String cursorOf(CachedMessage message) {
+        return new MessageCursor(message.sentAt(), message.id()).encode();
+    }
+
+    private String cursorOf(MessageDTO message) {
+        return new MessageCursor(message.getSentAt(), message.getId()).encode();
+    }
+
+    /**
+     * Unread counts for every chat room the user belongs to in the organization,
+     * computed from the room counters in a single query.
+     * @return map of chat room ID to unread message count
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Long> getUnreadMessageCounts(Long userId, Long organizationId) {
+        Map<Long, Long> counts = new LinkedHashMap<>();
+        for (ChatRoomMemberRepository.UnreadCounter counter : chatRoomMemberRepository.findUnreadCounters(userId, organizationId)) {
+            long lastReadSeq = readMarkerBuffer.lastReadSeq(counter.getChatRoomId(), userId, counter.getLastReadSeq());
+            counts.put(counter.getChatRoomId(), counter.getUnreadCount(lastReadSeq));
+        }
+        return counts;
     }
 
     /**
@@ -0,0 +1,93 @@
+package com.melon.app.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.melon.app.controller.DTO.ChatRoomDTO.MessageDTO;
+import com.melon.app.controller.DTO.ChatRoomDTO.MessageReactionsDTO;
+import com.melon.app.entity.chat.Message;
+import com.melon.app.entity.chat.MessageReaction;
+import com.melon.app.entity.chat.Reaction;
+import com.melon.app.exception.ChatRoomNotFoundException;
+import com.melon.app.repository.chat.MessageReactionRepository;
+import com.melon.app.repository.chat.MessageReactionRepository.OwnReactions;
+import com.melon.app.repository.chat.MessageRepository;
+import com.melon.app.service.chat.ChatMembershipIndex;
+import com.melon.app.service.chat.MessageReactionsChangedEvent;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Emoji reactions on chat messages.
+ *
+ * Each message carries the count of every reaction in its own row, so pages of history show
+ * counts without touching the reactions table. Which reactions the reader left is kept as
+ * one bitmask per (user, message) and looked up with a single query per page.
+ */
+@Service
+@RequiredArgsConstructor
+public class MessageReactionService {
+    private final MessageRepository messageRepository;
+    private final MessageReactionRepository messageReactionRepository;
+    private final ChatMembershipIndex membershipIndex;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Adds or removes one of the user's reactions. Doing what is already done changes nothing.
+     * Only messages still in the table can be reacted to; archived ones are read-only.
+     */
+    @Transactional
+    public MessageReactionsDTO setReaction(Long chatRoomId, Long messageId, Long userId, Reaction reaction, boolean reacted) {
+        membershipIndex.requireMember(chatRoomId, userId);
+
+        // Locked first so concurrent reactions to the message apply one at a time
+        Message message = messageRepository.findForUpdate(chatRoomId, messageId)
+            .orElseThrow(() -> new ChatRoomNotFoundException("Message not found"));
+        MessageReaction own = messageReactionRepository.findByMessageIdAndUserId(messageId, userId)
+            .orElseGet(() -> new MessageReaction(chatRoomId, messageId, userId));
+
+        int mask = reacted ? own.getReactions() | reaction.bit() : own.getReactions() & ~reaction.bit();
+        if (mask != own.getReactions()) {
+            int[] counts = Reaction.decodeCounts(message.getReactionCounts());
+            counts[reaction.ordinal()] += reacted ? 1 : -1;
+            message.setReactionCounts(Reaction.encodeCounts(counts));
+            own.setReactions(mask);
+            messageReactionRepository.save(own);
+
+            eventPublisher.publishEvent(new MessageReactionsChangedEvent(chatRoomId,
+                new MessageReactionsDTO(messageId, Reaction.countsOf(message.getReactionCounts()), null)));
+        }
+        return new MessageReactionsDTO(messageId, Reaction.countsOf(message.getReactionCounts()), Reaction.fromMask(mask));
+    }
+
+    /**
+     * Fills in myReactions for a page of messages with at most one query.
+     */
+    @Transactional(readOnly = true)
+    public List<MessageDTO> markOwnReactions(List<MessageDTO> messages, Long userId) {
+        // Nobody can have reacted to a message whose counts are all zero
+        List<Long> messageIds = messages.stream()
+            .filter(message -> !message.getReactions().isEmpty())
+            .map(MessageDTO::getId)
+            .toList();
+        if (messageIds.isEmpty()) {
+            return messages;
+        }
+        Map<Long, Integer> masks = messageReactionRepository.findOwnReactions(userId, messageIds).stream()
+            .collect(Collectors.toMap(OwnReactions::getMessageId, OwnReactions::getReactions));
+        if (!masks.isEmpty()) {
+            messages.forEach(message -> {
+                Integer mask = masks.get(message.getId());
+                if (mask != null) {
+                    message.setMyReactions(Reaction.fromMask(mask));
+                }
+            });
+        }
+        return messages;
+    }
+}
@@ -23,6 +23,9 @@ import com.melon.app.repository.OrganizationRepository;
 import com.melon.app.repository.UpcomingEventRepository;
 import com.melon.app.repository.UserRepository;
 import com.melon.app.repository.chat.ChatRoomMemberRepository;
+import com.melon.app.service.chat.ChatMembershipIndex;
+import com.melon.app.service.chat.PresenceRegistry;
+import com.melon.app.service.schedule.OrganizationAvailability;
 
 @Service
 public class OrganizationService {
@@ -45,6 +48,15 @@ public class OrganizationService {
     @Autowired
     private ChatRoomMemberRepository chatRoomMemberRepository;
 
+    @Autowired
+    private ChatMembershipIndex chatMembershipIndex;
+
+    @Autowired
+    private PresenceRegistry presenceRegistry;
+
+    @Autowired
+    private OrganizationAvailability organizationAvailability;
+
     @Transactional
     public String removeMember(Long orgId, Long userId) {
         OrganizationMembership membership = organizationMembershipRepo
@@ -58,10 +70,14 @@ public class OrganizationService {
         String username = membership.getUser().getUsername();
 
         // Remove chat room memberships first
+        List<Long> chatRoomIds = chatRoomMemberRepository.findChatRoomIdsByOrganizationIdAndUserId(orgId, userId);
         chatRoomMemberRepository.deleteAllByOrganizationIdAndUserId(orgId, userId);
+        chatMembershipIndex.membersChanged(chatRoomIds);
+        presenceRegistry.removeUser(orgId, userId);
         
         // Remove organization membership
         organizationMembershipRepo.deleteByOrganizationIdAndUserId(orgId, userId);
+        organizationAvailability.memberRemoved(orgId, userId);
 
         return username;
     }
@@ -102,6 +118,7 @@ public class OrganizationService {
         // Save both entities
         orgRepo.save(org);
         userRepo.save(freshUser);
+        organizationAvailability.memberAdded(oId, freshUser.getId());
 
         return org;
     }
@@ -0,0 +1,77 @@
+package com.melon.app.service;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+
+import com.melon.app.controller.DTO.ChatRoomDTO.PresenceSnapshotDTO;
+import com.melon.app.entity.OrganizationMembershipId;
+import com.melon.app.exception.ChatRoomNotFoundException;
+import com.melon.app.repository.OrganizationMembershipRepository;
+import com.melon.app.repository.chat.ChatRoomRepository;
+import com.melon.app.service.chat.ChatMembershipIndex;
+import com.melon.app.service.chat.PresenceRegistry;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Online and typing indicators. Membership is checked against the database only when a user
+ * comes online in an organization; while their heartbeats keep arriving each one is just a
+ * refresh of the in-memory entry in {@link PresenceRegistry}.
+ */
+@Service
+@RequiredArgsConstructor
+public class PresenceService {
+    private final PresenceRegistry presenceRegistry;
+    private final ChatMembershipIndex membershipIndex;
+    private final OrganizationMembershipRepository organizationMembershipRepository;
+    private final ChatRoomRepository chatRoomRepository;
+
+    public void heartbeat(Long organizationId, Long userId) {
+        if (presenceRegistry.touchOnline(organizationId, userId)) {
+            return;
+        }
+        requireOrganizationMember(organizationId, userId);
+        presenceRegistry.setOnline(organizationId, userId);
+    }
+
+    public void goOffline(Long organizationId, Long userId) {
+        presenceRegistry.setOffline(organizationId, userId);
+    }
+
+    public void setTyping(Long chatRoomId, Long userId, boolean typing) {
+        if (!typing) {
+            presenceRegistry.stopTyping(chatRoomId, userId);
+            return;
+        }
+        membershipIndex.requireMember(chatRoomId, userId);
+        if (presenceRegistry.touchTyping(chatRoomId, userId)) {
+            return;
+        }
+        Long organizationId = chatRoomRepository.findOrganizationId(chatRoomId)
+            .orElseThrow(() -> new ChatRoomNotFoundException("Chat room not found"));
+        presenceRegistry.setTyping(organizationId, chatRoomId, userId);
+    }
+
+    /**
+     * Typing indicators are only included for rooms the user is a member of.
+     */
+    public PresenceSnapshotDTO getSnapshot(Long organizationId, Long userId) {
+        List<Long> online = presenceRegistry.online(organizationId);
+        // Being online already proves membership, so polling clients skip the database
+        if (Collections.binarySearch(online, userId) < 0) {
+            requireOrganizationMember(organizationId, userId);
+        }
+        return new PresenceSnapshotDTO(
+            online,
+            presenceRegistry.typing(organizationId, chatRoomId -> membershipIndex.isMember(chatRoomId, userId)));
+    }
+
+    private void requireOrganizationMember(Long organizationId, Long userId) {
+        if (!organizationMembershipRepository.existsById(new OrganizationMembershipId(userId, organizationId))) {
+            throw new AccessDeniedException("User is not a member of this organization");
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.melon.app.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+
+import com.melon.app.controller.DTO.EntryDTO;
+import com.melon.app.controller.DTO.EventConflictDTO;
+import com.melon.app.controller.DTO.EventDTO;
+import com.melon.app.controller.DTO.ScheduleConflictDTO;
+import com.melon.app.entity.OrganizationMembershipId;
+import com.melon.app.entity.ScheduleEntry;
+import com.melon.app.entity.UpcomingEvent;
+import com.melon.app.exception.ConflictingSchedulesException;
+import com.melon.app.repository.OrganizationMembershipRepository;
+import com.melon.app.repository.ScheduleRepository;
+import com.melon.app.repository.UpcomingEventRepository;
+import com.melon.app.service.schedule.IntervalTree;
+import com.melon.app.service.schedule.IntervalTree.Interval;
+import com.melon.app.service.schedule.WeekSlots;
+
+/**
+ * Finds overlaps among a user's schedule entries and between those entries and an
+ * organization's upcoming events, using {@link IntervalTree}s over minutes of the week rather
+ * than comparing every pair.
+ *
+ * Entries repeat every week, so an event conflicts with an entry whenever the event's weekday
+ * and time overlap it. Events only have a start time; each is taken to last
+ * schedule.conflicts.event-duration-minutes.
+ */
+@Service
+public class ScheduleConflictService {
+    private final ScheduleRepository scheduleRepository;
+    private final UpcomingEventRepository upcomingEventRepository;
+    private final OrganizationMembershipRepository organizationMembershipRepository;
+    private final int eventDurationMinutes;
+
+    public ScheduleConflictService(
+            ScheduleRepository scheduleRepository,
+            UpcomingEventRepository upcomingEventRepository,
+            OrganizationMembershipRepository organizationMembershipRepository,
+            @Value("${schedule.conflicts.event-duration-minutes:60}") int eventDurationMinutes) {
+        this.scheduleRepository = scheduleRepository;
+        this.upcomingEventRepository = upcomingEventRepository;
+        this.organizationMembershipRepository = organizationMembershipRepository;
+        this.eventDurationMinutes = eventDurationMinutes;
+    }
+
+    /**
+     * @param userId the requesting user, who must be a member of the organization
+     * @return the organization's upcoming events that overlap any of the user's entries, in
+     *         date order
+     */
+    public List<EventConflictDTO> findEventConflicts(Long organizationId, Long userId) {
+        requireOrganizationMember(organizationId, userId);
+
+        IntervalTree<ScheduleEntry> entries = entryTree(scheduleRepository.findEntriesByUserId(userId));
+        List<EventConflictDTO> conflicts = new ArrayList<>();
+        for (UpcomingEvent event : upcomingEvents(organizationId)) {
+            List<ScheduleEntry> overlapping = new ArrayList<>();
+            for (Interval<UpcomingEvent> interval : eventIntervals(event)) {
+                overlapping.addAll(entries.overlapping(interval.start(), interval.end()));
+            }
+            if (!overlapping.isEmpty()) {
+                conflicts.add(new EventConflictDTO(new EventDTO(event), toEntryDtos(overlapping)));
+            }
+        }
+        return conflicts;
+    }
+
+    /**
+     * @param startMinute start of the proposed range in minutes since Monday 00:00
+     * @param endMinute end of the proposed range, after startMinute
+     * @return the user's entries and the organization's upcoming events overlapping the range
+     */
+    public ScheduleConflictDTO findConflicts(Long organizationId, Long userId, int startMinute, int endMinute) {
+        requireOrganizationMember(organizationId, userId);
+
+        List<ScheduleEntry> entries = entryTree(scheduleRepository.findEntriesByUserId(userId))
+            .overlapping(startMinute, endMinute);
+
+        List<UpcomingEvent> events = upcomingEvents(organizationId);
+        List<Interval<UpcomingEvent>> intervals = new ArrayList<>();
+        events.forEach(event -> intervals.addAll(eventIntervals(event)));
+        Set<UpcomingEvent> overlapping = new HashSet<>(new IntervalTree<>(intervals).overlapping(startMinute, endMinute));
+
+        return new ScheduleConflictDTO(toEntryDtos(entries), events.stream()
+            .filter(overlapping::contains)
+            .map(EventDTO::new)
+            .toList());
+    }
+
+    /**
+     * Checks entries about to be written against each other and against the user's other
+     * schedules.
+     * @param replacedScheduleId the schedule whose entries are being replaced, or null
+     * @throws ConflictingSchedulesException naming the first pair of overlapping entries
+     */
+    public void requireNoOverlaps(Long userId, Long replacedScheduleId, Collection<ScheduleEntry> entries) {
+        entries.forEach(ScheduleEntry::computeMinutes);
+        List<ScheduleEntry> all = new ArrayList<>(entries);
+        for (ScheduleEntry existing : scheduleRepository.findEntriesByUserId(userId)) {
+            if (!existing.getSchedule().getId().equals(replacedScheduleId)) {
+                all.add(existing);
+            }
+        }
+
+        IntervalTree<ScheduleEntry> tree = entryTree(all);
+        for (ScheduleEntry entry : entries) {
+            if (entry.getStartMinute() == null || entry.getEndMinute() == null) {
+                continue;
+            }
+            for (ScheduleEntry other : tree.overlapping(entry.getStartMinute(), entry.getEndMinute())) {
+                if (other != entry) {
+                    throw new ConflictingSchedulesException(
+                        String.format("%s overlaps %s", describe(entry), describe(other)));
+                }
+            }
+        }
+    }
+
+    private static IntervalTree<ScheduleEntry> entryTree(List<ScheduleEntry> entries) {
+        List<Interval<ScheduleEntry>> intervals = new ArrayList<>(entries.size());
+        for (ScheduleEntry entry : entries) {
+            if (entry.getStartMinute() != null && entry.getEndMinute() != null) {
+                intervals.add(new Interval<>(entry.getStartMinute(), entry.getEndMinute(), entry));
+            }
+        }
+        return new IntervalTree<>(intervals);
+    }
+
+    private List<UpcomingEvent> upcomingEvents(Long organizationId) {
+        return upcomingEventRepository.findByOrganizationIdAndDateGreaterThanEqualOrderByDateAscStartTimeAsc(
+            organizationId, LocalDate.now());
+    }
+
+    // An event running past Sunday midnight continues at the start of the week
+    private List<Interval<UpcomingEvent>> eventIntervals(UpcomingEvent event) {
+        int start = event.getDate().getDayOfWeek().ordinal() * ScheduleEntry.MINUTES_PER_DAY
+            + event.getStartTime().getHour() * 60 + event.getStartTime().getMinute();
+        int end = start + eventDurationMinutes;
+        if (end <= WeekSlots.MINUTES_PER_WEEK) {
+            return List.of(new Interval<>(start, end, event));
+        }
+        return List.of(
+            new Interval<>(start, WeekSlots.MINUTES_PER_WEEK, event),
+            new Interval<>(0, end - WeekSlots.MINUTES_PER_WEEK, event));
+    }
+
+    private static List<EntryDTO> toEntryDtos(Collection<ScheduleEntry> entries) {
+        return entries.stream()
+            .distinct()
+            .sorted(Comparator.comparing(ScheduleEntry::getStartMinute))
+            .map(EntryDTO::new)
+            .toList();
+    }
+
+    private static String describe(ScheduleEntry entry) {
+        return String.format("\"%s\" (%s %s-%s)",
+            entry.getEventName(), entry.getEventDay(), entry.getEventStartTime(), entry.getEventEndTime());
+    }
+
+    private void requireOrganizationMember(Long organizationId, Long userId) {
+        if (!organizationMembershipRepository.existsById(new OrganizationMembershipId(userId, organizationId))) {
+            throw new AccessDeniedException("User is not a member of this organization");
+        }
+    }
+}
@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.melon.app.controller.DTO.ScheduleDTO;
@@ -14,6 +15,7 @@ import com.melon.app.entity.User;
 import com.melon.app.exception.ConflictingSchedulesException;
 import com.melon.app.repository.ScheduleRepository;
 import com.melon.app.repository.UserRepository;
+import com.melon.app.service.schedule.OrganizationAvailability;
 
 @Service
 public class ScheduleService {
@@ -24,6 +26,16 @@ public class ScheduleService {
     @Autowired
     private UserRepository userRepo;
 
+    @Autowired
+    private OrganizationAvailability organizationAvailability;
+
+    @Autowired
+    private ScheduleConflictService scheduleConflictService;
+
+    // Rejects writes whose entries overlap each other or the user's other schedules
+    @Value("${schedule.conflicts.reject-overlaps:false}")
+    private boolean rejectOverlaps;
+
     private Schedule mapDtoToSchedule(ScheduleDTO scheduleDTO) {
         Schedule schedule = new Schedule(scheduleDTO.getName());
         schedule.setEntries(scheduleDTO.getEntries().stream()
@@ -66,8 +78,13 @@ public class ScheduleService {
 
         Schedule schedule = mapDtoToSchedule(scheduleDTO);
         schedule.setUser(user); // set user as owner of schedule
+        if (rejectOverlaps) {
+            scheduleConflictService.requireNoOverlaps(user.getId(), null, schedule.getEntries());
+        }
 
-        return scheduleRepo.save(schedule);
+        Schedule saved = scheduleRepo.save(schedule);
+        organizationAvailability.scheduleChanged(user.getId());
+        return saved;
     }
 
     public void updateScheduleEntries(ScheduleDTO newSchedule) {
@@ -87,9 +104,13 @@ public class ScheduleService {
                 return entry;
             })
             .collect(Collectors.toList());
+        if (rejectOverlaps) {
+            scheduleConflictService.requireNoOverlaps(schedule.getUser().getId(), schedule.getId(), entries);
+        }
         
         schedule.getEntries().addAll(entries);
         scheduleRepo.save(schedule);
+        organizationAvailability.scheduleChanged(schedule.getUser().getId());
     }
 
     public List<Schedule> getUserSchedules(User user) {
@@ -0,0 +1,103 @@
+package com.melon.app.service.chat;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.melon.app.repository.chat.ChatRoomMemberRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * In-memory index of who belongs to which chat room, so the chat hot paths (send, read,
+ * subscribe) can authorize without a database round trip.
+ *
+ * Each room maps to a sorted array of member user ids, loaded on first use. Anything that
+ * changes room membership must call {@link #membersChanged}; the affected rooms are dropped
+ * once the change commits and reloaded on the next check.
+ */
+@Component
+@RequiredArgsConstructor
+public class ChatMembershipIndex {
+    private final ChatRoomMemberRepository chatRoomMemberRepository;
+
+    private final Map<Long, long[]> membersByRoom = new ConcurrentHashMap<>();
+    // Bumped on every invalidation so a load that raced with a membership change is not installed
+    private long generation;
+
+    public boolean isMember(Long chatRoomId, Long userId) {
+        long[] userIds = membersByRoom.get(chatRoomId);
+        if (userIds == null) {
+            userIds = load(chatRoomId);
+        }
+        return Arrays.binarySearch(userIds, userId) >= 0;
+    }
+
+    /**
+     * @throws AccessDeniedException if the user is not a member of the room
+     */
+    public void requireMember(Long chatRoomId, Long userId) {
+        if (!isMember(chatRoomId, userId)) {
+            throw new AccessDeniedException("User is not a member of this chat room");
+        }
+    }
+
+    /**
+     * Marks the rooms' memberships as changed. Inside a transaction the rooms are dropped when it
+     * completes, so other requests never cache the old member list after the change is visible.
+     */
+    public void membersChanged(Collection<Long> chatRoomIds) {
+        if (chatRoomIds.isEmpty()) {
+            return;
+        }
+        List<Long> rooms = List.copyOf(chatRoomIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidate(rooms);
+                }
+            });
+        } else {
+            invalidate(rooms);
+        }
+    }
+
+    public void membersChanged(Long chatRoomId) {
+        membersChanged(List.of(chatRoomId));
+    }
+
+    private long[] load(Long chatRoomId) {
+        long observed = currentGeneration();
+        long[] userIds = chatRoomMemberRepository.findUserIdsByChatRoomId(chatRoomId).stream()
+            .mapToLong(Long::longValue)
+            .sorted()
+            .toArray();
+
+        // Empty results (including rooms that do not exist) are not cached
+        if (userIds.length > 0) {
+            synchronized (this) {
+                if (generation == observed) {
+                    membersByRoom.putIfAbsent(chatRoomId, userIds);
+                }
+            }
+        }
+        return userIds;
+    }
+
+    private synchronized long currentGeneration() {
+        return generation;
+    }
+
+    private synchronized void invalidate(Collection<Long> chatRoomIds) {
+        generation++;
+        chatRoomIds.forEach(membersByRoom::remove);
+    }
+}
@@ -0,0 +1,32 @@
+package com.melon.app.service.chat;
+
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.melon.app.config.WebSocketConfig;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Pushes newly committed messages to every session subscribed to the room's topic,
+ * so clients no longer need to poll for new messages or unread counts. Reaction count
+ * changes go to the room's reactions topic.
+ */
+@Component
+@RequiredArgsConstructor
+public class ChatMessageBroadcaster {
+    private final SimpMessagingTemplate messagingTemplate;
+
+    @TransactionalEventListener
+    public void onMessageSent(ChatMessageSentEvent event) {
+        messagingTemplate.convertAndSend(WebSocketConfig.CHAT_ROOM_TOPIC_PREFIX + event.chatRoomId(), event.message());
+    }
+
+    @TransactionalEventListener
+    public void onReactionsChanged(MessageReactionsChangedEvent event) {
+        messagingTemplate.convertAndSend(
+            WebSocketConfig.CHAT_ROOM_TOPIC_PREFIX + event.chatRoomId() + WebSocketConfig.REACTIONS_TOPIC_SUFFIX,
+            event.reactions());
+    }
+}
@@ -0,0 +1,12 @@
+package com.melon.app.service.chat;
+
+import com.melon.app.controller.DTO.ChatRoomDTO.MessageDTO;
+
+/**
+ * Published by ChatService whenever a message is persisted. Listeners should use
+ * {@code @TransactionalEventListener} so they only ever see committed messages.
+ *
+ * The message is viewer-neutral (isOwn is always false); recipients compare senderId.
+ */
+public record ChatMessageSentEvent(Long chatRoomId, MessageDTO message) {
+}
@@ -0,0 +1,10 @@
+package com.melon.app.service.chat;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published by ChatService when a room is marked deleted. The room's messages and members are
+ * still in the database at that point; {@link ChatRoomPurger} removes them once this commits.
+ */
+public record ChatRoomDeletedEvent(Long chatRoomId, Long organizationId, String name, LocalDateTime deletedAt) {
+}
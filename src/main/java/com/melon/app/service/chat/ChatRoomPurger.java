@@ -0,0 +1,243 @@
+package com.melon.app.service.chat;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.melon.app.controller.DTO.ChatRoomDTO.ChatRoomDeletionDTO;
+import com.melon.app.service.chat.archive.MessageArchive;
+import com.melon.app.service.chat.search.MessageSearchIndex;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Removes the messages and members of deleted chat rooms in the background.
+ *
+ * Deleting a room only sets chat_rooms.deleted_at, which hides it from every read path. This
+ * worker then deletes its rows in chunks of chat.deletion.chunk-size, each chunk in its own
+ * short transaction with a pause in between, so a large room never holds locks for long.
+ * Once the room is empty the room row itself is deleted. Rooms that are still marked deleted
+ * on startup are picked up again, and a failed purge is retried after a delay.
+ */
+@Component
+public class ChatRoomPurger {
+    private static final Logger logger = LoggerFactory.getLogger(ChatRoomPurger.class);
+
+    private static final Duration RETRY_DELAY = Duration.ofMinutes(1);
+    // How long finished purges stay visible in the progress listing
+    private static final Duration COMPLETED_RETENTION = Duration.ofHours(1);
+
+    private static final String PENDING_SQL =
+        "SELECT id, organization_id, name, deleted_at FROM chat_rooms WHERE deleted_at IS NOT NULL";
+
+    private static final String COUNT_MESSAGES_SQL = "SELECT COUNT(*) FROM messages WHERE chat_room_id = ?";
+    private static final String COUNT_MEMBERS_SQL = "SELECT COUNT(*) FROM chat_room_members WHERE chat_room_id = ?";
+
+    // Ids bound each chunk, so the delete itself is a range scan on the room's rows
+    private static final String MESSAGE_CHUNK_SQL =
+        "SELECT id FROM messages WHERE chat_room_id = ? ORDER BY id LIMIT ?";
+    private static final String DELETE_MESSAGES_SQL =
+        "DELETE FROM messages WHERE chat_room_id = ? AND id BETWEEN ? AND ?";
+    private static final String MEMBER_CHUNK_SQL =
+        "SELECT id FROM chat_room_members WHERE chat_room_id = ? ORDER BY id LIMIT ?";
+    private static final String DELETE_MEMBERS_SQL =
+        "DELETE FROM chat_room_members WHERE chat_room_id = ? AND id BETWEEN ? AND ?";
+    private static final String REACTION_CHUNK_SQL =
+        "SELECT id FROM message_reactions WHERE chat_room_id = ? ORDER BY id LIMIT ?";
+    private static final String DELETE_REACTIONS_SQL =
+        "DELETE FROM message_reactions WHERE chat_room_id = ? AND id BETWEEN ? AND ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RecentMessageCache recentMessageCache;
+    private final MessageSearchIndex messageSearchIndex;
+    private final MessageArchive messageArchive;
+    private final MessageDedupCache messageDedupCache;
+    private final int chunkSize;
+    private final long chunkPauseMillis;
+
+    private final Map<Long, Purge> purges = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor =
+        Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("chat-room-purger").daemon().factory());
+
+    public ChatRoomPurger(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            RecentMessageCache recentMessageCache,
+            MessageSearchIndex messageSearchIndex,
+            MessageArchive messageArchive,
+            MessageDedupCache messageDedupCache,
+            @Value("${chat.deletion.chunk-size:1000}") int chunkSize,
+            @Value("${chat.deletion.chunk-pause-ms:50}") long chunkPauseMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.recentMessageCache = recentMessageCache;
+        this.messageSearchIndex = messageSearchIndex;
+        this.messageArchive = messageArchive;
+        this.messageDedupCache = messageDedupCache;
+        this.chunkSize = chunkSize;
+        this.chunkPauseMillis = chunkPauseMillis;
+    }
+
+    public enum Status { PENDING, RUNNING, FAILED, COMPLETED }
+
+    /**
+     * Mutable progress of one room's purge. Only the executor thread writes to it.
+     */
+    private static final class Purge {
+        final Long chatRoomId;
+        final Long organizationId;
+        final String name;
+        final LocalDateTime deletedAt;
+        volatile Status status = Status.PENDING;
+        volatile LocalDateTime completedAt;
+        volatile Long messagesTotal;
+        volatile long messagesDeleted;
+        volatile Long membersTotal;
+        volatile long membersDeleted;
+
+        Purge(Long chatRoomId, Long organizationId, String name, LocalDateTime deletedAt) {
+            this.chatRoomId = chatRoomId;
+            this.organizationId = organizationId;
+            this.name = name;
+            this.deletedAt = deletedAt;
+        }
+
+        ChatRoomDeletionDTO toDto() {
+            ChatRoomDeletionDTO dto = new ChatRoomDeletionDTO();
+            dto.setChatRoomId(chatRoomId);
+            dto.setName(name);
+            dto.setStatus(status.name());
+            dto.setDeletedAt(deletedAt);
+            dto.setCompletedAt(completedAt);
+            dto.setMessagesTotal(messagesTotal);
+            dto.setMessagesDeleted(messagesDeleted);
+            dto.setMembersTotal(membersTotal);
+            dto.setMembersDeleted(membersDeleted);
+            return dto;
+        }
+    }
+
+    /**
+     * Resumes purges that were interrupted by a shutdown.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        jdbcTemplate.query(PENDING_SQL, rs -> {
+            schedule(new Purge(rs.getLong("id"), rs.getLong("organization_id"), rs.getString("name"),
+                rs.getTimestamp("deleted_at").toLocalDateTime()));
+        });
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @TransactionalEventListener
+    public void onRoomDeleted(ChatRoomDeletedEvent event) {
+        schedule(new Purge(event.chatRoomId(), event.organizationId(), event.name(), event.deletedAt()));
+    }
+
+    /**
+     * @return purges of the organization's rooms that are in progress or finished recently, oldest first
+     */
+    public List<ChatRoomDeletionDTO> getProgress(Long organizationId) {
+        LocalDateTime expiry = LocalDateTime.now().minus(COMPLETED_RETENTION);
+        purges.values().removeIf(purge -> purge.completedAt != null && purge.completedAt.isBefore(expiry));
+
+        return purges.values().stream()
+            .filter(purge -> purge.organizationId.equals(organizationId))
+            .sorted(Comparator.comparing((Purge purge) -> purge.deletedAt))
+            .map(Purge::toDto)
+            .collect(Collectors.toList());
+    }
+
+    private void schedule(Purge purge) {
+        if (purges.putIfAbsent(purge.chatRoomId, purge) == null) {
+            executor.execute(() -> run(purge));
+        }
+    }
+
+    private void run(Purge purge) {
+        purge.status = Status.RUNNING;
+        try {
+            purge(purge);
+            purge.status = Status.COMPLETED;
+            purge.completedAt = LocalDateTime.now();
+            logger.info("Purged chat room {}: {} messages, {} members",
+                purge.chatRoomId, purge.messagesDeleted, purge.membersDeleted);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            logger.error("Failed to purge chat room {}, retrying in {}", purge.chatRoomId, RETRY_DELAY, e);
+            purge.status = Status.FAILED;
+            executor.schedule(() -> run(purge), RETRY_DELAY.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void purge(Purge purge) throws InterruptedException {
+        Long chatRoomId = purge.chatRoomId;
+        if (purge.messagesTotal == null) {
+            purge.messagesTotal = jdbcTemplate.queryForObject(COUNT_MESSAGES_SQL, Long.class, chatRoomId);
+            purge.membersTotal = jdbcTemplate.queryForObject(COUNT_MEMBERS_SQL, Long.class, chatRoomId);
+        }
+
+        int deleted;
+        while ((deleted = deleteChunk(MESSAGE_CHUNK_SQL, DELETE_MESSAGES_SQL, chatRoomId)) > 0) {
+            purge.messagesDeleted += deleted;
+            Thread.sleep(chunkPauseMillis);
+        }
+        while ((deleted = deleteChunk(MEMBER_CHUNK_SQL, DELETE_MEMBERS_SQL, chatRoomId)) > 0) {
+            purge.membersDeleted += deleted;
+            Thread.sleep(chunkPauseMillis);
+        }
+        while (deleteChunk(REACTION_CHUNK_SQL, DELETE_REACTIONS_SQL, chatRoomId) > 0) {
+            Thread.sleep(chunkPauseMillis);
+        }
+
+        // A send that passed its membership check just before the room was marked deleted can
+        // still land after the chunks above, so the last sweep and the room row go together
+        transactionTemplate.executeWithoutResult(status -> {
+            purge.messagesDeleted += jdbcTemplate.update("DELETE FROM messages WHERE chat_room_id = ?", chatRoomId);
+            jdbcTemplate.update("DELETE FROM chat_room_members WHERE chat_room_id = ?", chatRoomId);
+            jdbcTemplate.update("DELETE FROM message_reactions WHERE chat_room_id = ?", chatRoomId);
+            jdbcTemplate.update("DELETE FROM chat_rooms WHERE id = ?", chatRoomId);
+        });
+
+        recentMessageCache.invalidate(chatRoomId);
+        messageSearchIndex.removeRoom(chatRoomId);
+        messageArchive.removeRoom(chatRoomId);
+        messageDedupCache.removeRoom(chatRoomId);
+    }
+
+    /**
+     * Deletes the next chunk of the room's rows from one table.
+     * @return the number of rows deleted, 0 once the room has none left
+     */
+    private int deleteChunk(String chunkSql, String deleteSql, Long chatRoomId) {
+        List<Long> ids = jdbcTemplate.queryForList(chunkSql, Long.class, chatRoomId, chunkSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update(deleteSql, chatRoomId, ids.get(0), ids.get(ids.size() - 1));
+    }
+}
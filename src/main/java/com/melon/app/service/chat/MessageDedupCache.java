@@ -0,0 +1,77 @@
+package com.melon.app.service.chat;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.melon.app.controller.DTO.ChatRoomDTO.MessageDTO;
+
+/**
+ * Recently sent messages by their client message id, so a retried send can be answered with
+ * the original message without touching the database.
+ *
+ * Each room keeps at most chat.dedup.max-per-room entries, for at most chat.dedup.window-ms.
+ * This only saves work: the unique constraint on (chat_room_id, sender_id, client_message_id)
+ * is what guarantees a message is never stored twice, including retries that arrive while the
+ * original is still being written or after it has left the cache.
+ */
+@Component
+public class MessageDedupCache {
+    private final long windowMillis;
+    private final int maxPerRoom;
+
+    // Per room, in the order the messages were sent
+    private final Map<Long, Map<Key, Sent>> rooms = new ConcurrentHashMap<>();
+
+    public MessageDedupCache(
+            @Value("${chat.dedup.window-ms:600000}") long windowMillis,
+            @Value("${chat.dedup.max-per-room:1000}") int maxPerRoom) {
+        this.windowMillis = windowMillis;
+        this.maxPerRoom = maxPerRoom;
+    }
+
+    private record Key(Long senderId, String clientMessageId) {}
+
+    private record Sent(MessageDTO message, long storedAtMillis) {}
+
+    public Optional<MessageDTO> find(Long chatRoomId, Long senderId, String clientMessageId) {
+        Map<Key, Sent> room = rooms.get(chatRoomId);
+        if (room == null) {
+            return Optional.empty();
+        }
+        synchronized (room) {
+            Sent sent = room.get(new Key(senderId, clientMessageId));
+            if (sent == null || sent.storedAtMillis() <= System.currentTimeMillis() - windowMillis) {
+                return Optional.empty();
+            }
+            return Optional.of(sent.message());
+        }
+    }
+
+    public void put(Long chatRoomId, String clientMessageId, MessageDTO message) {
+        long now = System.currentTimeMillis();
+        Map<Key, Sent> room = rooms.computeIfAbsent(chatRoomId, id -> new LinkedHashMap<>());
+        synchronized (room) {
+            room.putIfAbsent(new Key(message.getSenderId(), clientMessageId), new Sent(message, now));
+
+            // Oldest first, so stop at the first entry that is both recent and within the bound
+            Iterator<Sent> oldest = room.values().iterator();
+            while (oldest.hasNext()) {
+                Sent sent = oldest.next();
+                if (room.size() <= maxPerRoom && sent.storedAtMillis() > now - windowMillis) {
+                    break;
+                }
+                oldest.remove();
+            }
+        }
+    }
+
+    public void removeRoom(Long chatRoomId) {
+        rooms.remove(chatRoomId);
+    }
+}
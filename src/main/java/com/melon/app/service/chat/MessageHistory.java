@@ -0,0 +1,170 @@
+package com.melon.app.service.chat;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import com.melon.app.controller.DTO.ChatRoomDTO.MessageDTO;
+import com.melon.app.controller.DTO.MessageCursor;
+import com.melon.app.entity.User;
+import com.melon.app.entity.chat.Message;
+import com.melon.app.entity.chat.Reaction;
+import com.melon.app.repository.UserRepository;
+import com.melon.app.repository.chat.MessageRepository;
+import com.melon.app.service.chat.RecentMessageCache.CachedMessage;
+import com.melon.app.service.chat.archive.MessageArchive;
+import com.melon.app.service.chat.archive.MessageArchive.ArchivedMessage;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Reads a room's history across the messages table and the {@link MessageArchive}. Archived
+ * messages are always older than the ones left in the table, so a page is read from the table
+ * first and continues into the archive once the table runs out.
+ *
+ * History holds top-level messages only. Each comes with its reply count and a preview of its
+ * newest reply; the previews of a whole page are loaded with one query, however long the
+ * threads are.
+ */
+@Component
+@RequiredArgsConstructor
+public class MessageHistory {
+    private static final String UNKNOWN_SENDER = "Unknown";
+
+    private final MessageRepository messageRepository;
+    private final UserRepository userRepository;
+    private final MessageArchive messageArchive;
+
+    /**
+     * @param messages in display order (oldest first)
+     * @param hasMore whether there are more messages in the direction that was read
+     */
+    public record HistoryPage(List<CachedMessage> messages, boolean hasMore) {}
+
+    /**
+     * @param before exclusive upper bound, or null for the newest messages of the room
+     * @return the newest {@code limit} messages before the cursor
+     */
+    public HistoryPage before(Long chatRoomId, MessageCursor before, int limit) {
+        List<CachedMessage> newestFirst = new ArrayList<>(limit);
+        boolean hasMore = false;
+        Optional<MessageCursor> boundary = messageArchive.boundary(chatRoomId);
+        MessageCursor archiveFrom = before;
+
+        boolean onlyArchived = before != null && boundary.isPresent() && before.compareTo(boundary.get()) <= 0;
+        if (!onlyArchived) {
+            PageRequest page = PageRequest.ofSize(limit);
+            Slice<Message> slice = before == null
+                ? messageRepository.findLatestPage(chatRoomId, page)
+                : messageRepository.findPageBefore(chatRoomId, before.sentAt(), before.id(), page);
+            newestFirst.addAll(fromTable(slice.getContent()));
+            hasMore = slice.hasNext();
+            if (!newestFirst.isEmpty()) {
+                archiveFrom = cursorOf(newestFirst.get(newestFirst.size() - 1));
+            }
+        }
+
+        // Nothing older is left in the table, so continue into the archive
+        if (!hasMore && boundary.isPresent()) {
+            int remaining = limit - newestFirst.size();
+            List<ArchivedMessage> archived = messageArchive.findBefore(chatRoomId, archiveFrom, remaining + 1);
+            hasMore = archived.size() > remaining;
+            newestFirst.addAll(toCached(archived.subList(0, Math.min(remaining, archived.size()))));
+        }
+
+        Collections.reverse(newestFirst);
+        return new HistoryPage(newestFirst, hasMore);
+    }
+
+    /**
+     * @return the oldest {@code limit} messages after the cursor
+     */
+    public HistoryPage after(Long chatRoomId, MessageCursor after, int limit) {
+        List<CachedMessage> oldestFirst = new ArrayList<>(limit);
+        Optional<MessageCursor> boundary = messageArchive.boundary(chatRoomId);
+
+        if (boundary.isPresent() && after.compareTo(boundary.get()) < 0) {
+            List<ArchivedMessage> archived = messageArchive.findAfter(chatRoomId, after, limit + 1);
+            if (archived.size() > limit) {
+                return new HistoryPage(toCached(archived.subList(0, limit)), true);
+            }
+            oldestFirst.addAll(toCached(archived));
+        }
+
+        // Everything in the table is newer than the archive, so the caller's cursor still applies
+        int remaining = limit - oldestFirst.size();
+        Slice<Message> slice = messageRepository.findPageAfter(chatRoomId, after.sentAt(), after.id(),
+            PageRequest.ofSize(Math.max(remaining, 1)));
+        if (remaining == 0) {
+            return new HistoryPage(oldestFirst, slice.hasContent());
+        }
+        oldestFirst.addAll(fromTable(slice.getContent()));
+        return new HistoryPage(oldestFirst, slice.hasNext());
+    }
+
+    /**
+     * Looks up archived messages of a room by id. Messages still in the table are not returned.
+     */
+    public List<CachedMessage> findArchived(Long chatRoomId, Collection<Long> messageIds) {
+        if (!messageArchive.hasMessages(chatRoomId)) {
+            return List.of();
+        }
+        return toCached(messageArchive.findByIds(chatRoomId, messageIds));
+    }
+
+    /**
+     * Converts messages read from the table, with the reply previews of any threads among them.
+     */
+    public List<CachedMessage> fromTable(List<Message> messages) {
+        Map<Long, CachedMessage> latestReplies = findLatestReplies(messages.stream().map(Message::getLastReplyId));
+        return messages.stream()
+            .map(message -> {
+                CachedMessage cached = CachedMessage.fromDto(MessageDTO.fromEntity(message, null));
+                return message.getLastReplyId() != null
+                    ? cached.withLatestReply(latestReplies.get(message.getLastReplyId()))
+                    : cached;
+            })
+            .collect(Collectors.toList());
+    }
+
+    private List<CachedMessage> toCached(List<ArchivedMessage> archived) {
+        if (archived.isEmpty()) {
+            return List.of();
+        }
+        Set<Long> senderIds = archived.stream().map(ArchivedMessage::senderId).collect(Collectors.toSet());
+        Map<Long, String> usernames = userRepository.findAllById(senderIds).stream()
+            .collect(Collectors.toMap(User::getId, User::getUsername));
+        // Replies are never archived, so the previews come from the table
+        Map<Long, CachedMessage> latestReplies = findLatestReplies(archived.stream().map(ArchivedMessage::lastReplyId));
+        Function<ArchivedMessage, CachedMessage> convert = message -> new CachedMessage(message.id(), message.seq(),
+            message.senderId(), usernames.getOrDefault(message.senderId(), UNKNOWN_SENDER), message.content(),
+            message.sentAt(), message.edited(), Reaction.countsOf(message.reactionCounts()),
+            null, message.replyCount(), message.lastReplyId() != null ? latestReplies.get(message.lastReplyId()) : null);
+        return archived.stream().map(convert).collect(Collectors.toList());
+    }
+
+    private Map<Long, CachedMessage> findLatestReplies(Stream<Long> lastReplyIds) {
+        List<Long> ids = lastReplyIds.filter(Objects::nonNull).toList();
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return messageRepository.findAllWithSenderByIdIn(ids).stream()
+            .collect(Collectors.toMap(Message::getId, reply -> CachedMessage.fromDto(MessageDTO.fromEntity(reply, null))));
+    }
+
+    private static MessageCursor cursorOf(CachedMessage message) {
+        return new MessageCursor(message.sentAt(), message.id());
+    }
+}
@@ -0,0 +1,99 @@
+package com.melon.app.service.chat;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.melon.app.exception.ChatUnavailableException;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Parked long-poll requests, by room. A parked poll holds no thread: it is a listener that
+ * runs on a virtual thread whenever a message commits to its room, until it is cancelled.
+ * At most chat.poll.max-waiters polls can be parked at once.
+ */
+@Component
+public class MessagePollRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(MessagePollRegistry.class);
+
+    private final int maxWaiters;
+    private final Map<Long, Set<Runnable>> listenersByRoom = new ConcurrentHashMap<>();
+    private final AtomicInteger waiters = new AtomicInteger();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public MessagePollRegistry(
+            @Value("${chat.poll.max-waiters:10000}") int maxWaiters,
+            MeterRegistry meterRegistry) {
+        this.maxWaiters = maxWaiters;
+        Gauge.builder("chat.poll.waiters", waiters, AtomicInteger::get).register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Runs the listener after every message committed to the room until the returned handle is run.
+     * @throws ChatUnavailableException if too many polls are already parked
+     */
+    public Runnable register(Long chatRoomId, Runnable listener) {
+        if (waiters.incrementAndGet() > maxWaiters) {
+            waiters.decrementAndGet();
+            throw new ChatUnavailableException("Too many clients are waiting for messages, please retry");
+        }
+        // Wrapped so the same listener can be registered twice and still be removed once per handle
+        Runnable entry = listener::run;
+        // Added inside compute so a concurrent cancel cannot drop the set this entry went into
+        listenersByRoom.compute(chatRoomId, (id, listeners) -> {
+            Set<Runnable> room = listeners != null ? listeners : ConcurrentHashMap.newKeySet();
+            room.add(entry);
+            return room;
+        });
+
+        return () -> {
+            boolean[] removed = { false };
+            listenersByRoom.computeIfPresent(chatRoomId, (id, listeners) -> {
+                removed[0] = listeners.remove(entry);
+                return listeners.isEmpty() ? null : listeners;
+            });
+            if (removed[0]) {
+                waiters.decrementAndGet();
+            }
+        };
+    }
+
+    // Ordered after RecentMessageCache so woken polls find the new message in the cache
+    @TransactionalEventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onMessageSent(ChatMessageSentEvent event) {
+        Set<Runnable> listeners = listenersByRoom.get(event.chatRoomId());
+        if (listeners == null) {
+            return;
+        }
+        for (Runnable listener : listeners) {
+            executor.execute(() -> {
+                try {
+                    listener.run();
+                } catch (RuntimeException e) {
+                    logger.warn("Failed to wake a message poll for chat room {}", event.chatRoomId(), e);
+                }
+            });
+        }
+    }
+}
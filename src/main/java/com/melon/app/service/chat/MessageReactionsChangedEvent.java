@@ -0,0 +1,12 @@
+package com.melon.app.service.chat;
+
+import com.melon.app.controller.DTO.ChatRoomDTO.MessageReactionsDTO;
+
+/**
+ * Published by MessageReactionService when a message's reaction counts change. Like
+ * {@link ChatMessageSentEvent} it should be handled with {@code @TransactionalEventListener}.
+ *
+ * The counts are viewer-neutral (myReactions is null).
+ */
+public record MessageReactionsChangedEvent(Long chatRoomId, MessageReactionsDTO reactions) {
+}
@@ -0,0 +1,42 @@
+package com.melon.app.service.chat;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.melon.app.exception.ChatRoomNotFoundException;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Hands out each room's message sequence numbers: 1, 2, 3, ... in the order messages are
+ * inserted. The counter is chat_rooms.message_seq itself, incremented inside the transaction
+ * that inserts the messages. The increment locks the room row until that transaction ends,
+ * so concurrent senders to a room take turns on every instance, and a rollback undoes the
+ * increment together with the insert, so a failed send never leaves a gap.
+ */
+@Component
+@RequiredArgsConstructor
+public class MessageSequencer {
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Reserves the room's next {@code count} sequence numbers for messages inserted in the
+     * current transaction.
+     * @return the first reserved number; the rest follow it consecutively
+     * @throws ChatRoomNotFoundException if the room does not exist or has been deleted
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long allocate(Long chatRoomId, int count) {
+        int updated = jdbcTemplate.update(
+            "UPDATE chat_rooms SET message_seq = COALESCE(message_seq, 0) + ? WHERE id = ? AND deleted_at IS NULL",
+            count, chatRoomId);
+        if (updated == 0) {
+            throw new ChatRoomNotFoundException("Chat room not found");
+        }
+        Long last = jdbcTemplate.queryForObject(
+            "SELECT message_seq FROM chat_rooms WHERE id = ?", Long.class, chatRoomId);
+        return last - count + 1;
+    }
+}
@@ -0,0 +1,329 @@
+package com.melon.app.service.chat;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.melon.app.controller.DTO.ChatRoomDTO.MessageDTO;
+import com.melon.app.entity.User;
+import com.melon.app.entity.chat.Message;
+import com.melon.app.exception.ChatRoomNotFoundException;
+import com.melon.app.exception.ChatUnavailableException;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Optional group-commit path for chat messages (chat.write-behind.enabled).
+ *
+ * Senders enqueue their message and wait. A single flusher thread collects everything that
+ * arrives within chat.write-behind.flush-interval-ms (up to max-batch-size messages) and
+ * writes it with one batched INSERT in one transaction. Each sender is released only after
+ * that transaction commits, so an acknowledged message is durable. Larger intervals give
+ * bigger batches and more throughput at the cost of per-message latency.
+ *
+ * The messages table uses IDENTITY ids, which stops Hibernate from batching inserts, so the
+ * batch goes through JDBC directly and reads the generated ids back.
+ *
+ * Replies still take the direct path while this is enabled, and other instances have their
+ * own flushers, so the flusher is not the only allocator of sequence numbers. Both paths
+ * allocate from the room's counter inside their insert transaction (see MessageSequencer).
+ */
+@Component
+public class MessageWriteBehindQueue {
+    private static final Logger logger = LoggerFactory.getLogger(MessageWriteBehindQueue.class);
+
+    private static final String INSERT_SQL =
+        "INSERT INTO messages (chat_room_id, seq, sender_id, content, sent_at, client_message_id, is_edited, is_deleted) " +
+        "VALUES (?, ?, ?, ?, ?, ?, FALSE, FALSE)";
+
+    private static final String RECORD_LAST_MESSAGE_SQL = "UPDATE chat_rooms SET last_message_id = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MessageSequencer messageSequencer;
+
+    private final boolean enabled;
+    private final long flushIntervalNanos;
+    private final int maxBatchSize;
+    private final long ackTimeoutMillis;
+    private final BlockingQueue<PendingMessage> queue;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public MessageWriteBehindQueue(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            ApplicationEventPublisher eventPublisher,
+            MessageSequencer messageSequencer,
+            @Value("${chat.write-behind.enabled:false}") boolean enabled,
+            @Value("${chat.write-behind.flush-interval-ms:5}") long flushIntervalMillis,
+            @Value("${chat.write-behind.max-batch-size:256}") int maxBatchSize,
+            @Value("${chat.write-behind.queue-capacity:10000}") int queueCapacity,
+            @Value("${chat.write-behind.ack-timeout-ms:5000}") long ackTimeoutMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.messageSequencer = messageSequencer;
+        this.enabled = enabled;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.maxBatchSize = maxBatchSize;
+        this.ackTimeoutMillis = ackTimeoutMillis;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    private record PendingMessage(Long chatRoomId, Long senderId, String senderUsername, String content,
+                                  LocalDateTime sentAt, String clientMessageId, CompletableFuture<MessageDTO> ack,
+                                  AtomicInteger state) {
+        private static final int QUEUED = 0;
+        private static final int TAKEN = 1;
+        private static final int CANCELLED = 2;
+
+        /**
+         * @return true if the flusher may write this message, false if its sender gave up on it
+         */
+        boolean take() {
+            return state.compareAndSet(QUEUED, TAKEN);
+        }
+
+        /**
+         * @return true if the message will never be written, false if the flusher already has it
+         */
+        boolean cancel() {
+            return state.compareAndSet(QUEUED, CANCELLED);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        flusher = Thread.ofPlatform().name("chat-write-behind").daemon().start(this::runFlusher);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        if (flusher != null) {
+            flusher.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    /**
+     * Queues a message and blocks until the batch containing it has been committed.
+     *
+     * A sender is only told the send failed if the message will never be written: one that is
+     * still queued when chat.write-behind.ack-timeout-ms runs out is cancelled and skipped by
+     * the flusher, and one the flusher has already taken is waited for, since it may commit.
+     * @return the persisted message as seen by its sender
+     */
+    public MessageDTO submit(Long chatRoomId, User sender, String content, String clientMessageId) {
+        PendingMessage pending = new PendingMessage(chatRoomId, sender.getId(), sender.getUsername(),
+            content, Message.now(), clientMessageId, new CompletableFuture<>(), new AtomicInteger());
+        try {
+            if (!running || !queue.offer(pending, ackTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new ChatUnavailableException("Chat is busy, please try again");
+            }
+            try {
+                return pending.ack().get(ackTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (pending.cancel()) {
+                    throw new ChatUnavailableException("Timed out waiting for message to be saved", e);
+                }
+                return pending.ack().get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // The message may still be written; a retry with the same client id finds it
+            throw new ChatUnavailableException("Interrupted while sending message", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new ChatUnavailableException("Failed to save message", e.getCause());
+        }
+    }
+
+    private void runFlusher() {
+        List<PendingMessage> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingMessage first = queue.poll(100, TimeUnit.MILLISECONDS);
+                // Messages whose senders already gave up are dropped unwritten
+                if (first == null || !first.take()) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Keep collecting until the flush interval since the first message has passed
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingMessage next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    if (next.take()) {
+                        batch.add(next);
+                    }
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+                ChatUnavailableException failure = new ChatUnavailableException("Chat is shutting down", e);
+                batch.forEach(pending -> pending.ack().completeExceptionally(failure));
+                queue.forEach(pending -> pending.ack().completeExceptionally(failure));
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Unexpected error in chat write-behind flusher", e);
+                batch.forEach(pending -> pending.ack().completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingMessage> batch) {
+        List<MessageDTO> saved;
+        try {
+            saved = insertWithSequence(batch);
+        } catch (DataIntegrityViolationException | ChatRoomNotFoundException e) {
+            // A bad row (e.g. a deleted room or a duplicate client message id) fails the whole
+            // batch; retry one by one to isolate it
+            logger.warn("Batched message insert failed, retrying {} messages individually", batch.size());
+            for (PendingMessage pending : batch) {
+                try {
+                    List<MessageDTO> single = insertWithSequence(List.of(pending));
+                    pending.ack().complete(single.get(0));
+                } catch (RuntimeException rowFailure) {
+                    // Handed to the sender as is, so it can tell a duplicate from a deleted room
+                    pending.ack().completeExceptionally(rowFailure);
+                }
+            }
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).ack().complete(saved.get(i));
+        }
+    }
+
+    /**
+     * Numbers the batch and inserts it in one transaction. Each room's numbers are allocated
+     * in one step and handed out in batch order; if the transaction rolls back they are
+     * returned with it, so the rows that are retried take the same numbers again.
+     */
+    private List<MessageDTO> insertWithSequence(List<PendingMessage> batch) {
+        return transactionTemplate.execute(status -> {
+            Map<Long, Integer> countByRoom = new TreeMap<>();
+            for (PendingMessage pending : batch) {
+                countByRoom.merge(pending.chatRoomId(), 1, Integer::sum);
+            }
+            // Room rows are locked in id order, so batches spanning several rooms (e.g. from two
+            // instances) cannot deadlock each other
+            Map<Long, Long> nextSeqByRoom = new HashMap<>();
+            countByRoom.forEach((chatRoomId, count) ->
+                nextSeqByRoom.put(chatRoomId, messageSequencer.allocate(chatRoomId, count)));
+
+            long[] seqs = new long[batch.size()];
+            for (int i = 0; i < batch.size(); i++) {
+                seqs[i] = nextSeqByRoom.merge(batch.get(i).chatRoomId(), 1L, Long::sum) - 1;
+            }
+            return insert(batch, seqs);
+        });
+    }
+
+    /**
+     * Inserts the batch and publishes a sent event for each message. Must run inside a
+     * transaction so the events are only delivered once the batch has committed.
+     */
+    private List<MessageDTO> insert(List<PendingMessage> batch, long[] seqs) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+            connection -> connection.prepareStatement(INSERT_SQL, new String[] { "id" }),
+            new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    PendingMessage pending = batch.get(i);
+                    ps.setLong(1, pending.chatRoomId());
+                    ps.setLong(2, seqs[i]);
+                    ps.setLong(3, pending.senderId());
+                    ps.setString(4, pending.content());
+                    ps.setObject(5, pending.sentAt());
+                    ps.setString(6, pending.clientMessageId());
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return batch.size();
+                }
+            },
+            keys);
+
+        List<Map<String, Object>> generated = keys.getKeyList();
+        List<MessageDTO> saved = new ArrayList<>(batch.size());
+        Map<Long, Long> lastIdByRoom = new HashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            PendingMessage pending = batch.get(i);
+            Long id = ((Number) generated.get(i).values().iterator().next()).longValue();
+            lastIdByRoom.merge(pending.chatRoomId(), id, Math::max);
+
+            eventPublisher.publishEvent(new ChatMessageSentEvent(pending.chatRoomId(), toDto(id, seqs[i], pending, false)));
+            saved.add(toDto(id, seqs[i], pending, true));
+        }
+
+        // One update per room in the batch rather than per message
+        jdbcTemplate.batchUpdate(RECORD_LAST_MESSAGE_SQL, lastIdByRoom.entrySet().stream()
+            .map(entry -> new Object[] { entry.getValue(), entry.getKey() })
+            .toList());
+        return saved;
+    }
+
+    private MessageDTO toDto(Long id, long seq, PendingMessage pending, boolean own) {
+        MessageDTO dto = new MessageDTO();
+        dto.setId(id);
+        dto.setSeq(seq);
+        dto.setSenderId(pending.senderId());
+        dto.setSenderUsername(pending.senderUsername());
+        dto.setContent(pending.content());
+        dto.setSentAt(pending.sentAt());
+        dto.setEdited(false);
+        dto.setOwn(own);
+        dto.setReactions(Map.of());
+        dto.setMyReactions(List.of());
+        return dto;
+    }
+}
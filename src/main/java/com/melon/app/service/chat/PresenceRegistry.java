@@ -0,0 +1,291 @@
+package com.melon.app.service.chat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongPredicate;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Who is online in each organization and who is typing in each chat room. Nothing here is
+ * persisted; entries simply expire when their heartbeats stop.
+ *
+ * Heartbeats are coalesced: refreshing an existing entry is one map lookup and one volatile
+ * write, and does not touch the expiry schedule. Expiry runs on a timer wheel with one slot
+ * per tick. Each entry sits in the slot of the expiry it had when it was last checked; when
+ * the wheel reaches that slot the entry is either removed or, if it was refreshed in the
+ * meantime, moved to the slot of its new expiry. So the wheel does work per entry per TTL
+ * period rather than per heartbeat.
+ */
+@Component
+public class PresenceRegistry {
+    private static final long TICK_MILLIS = 1000;
+
+    private final Table online;
+    private final Table typing;
+
+    private final Queue<Entry>[] wheel;
+    // Next tick whose slot has not been processed; only advanced by the ticker thread
+    private volatile long nextTick;
+    private final ScheduledExecutorService ticker =
+        Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("chat-presence").daemon().factory());
+
+    @SuppressWarnings("unchecked")
+    public PresenceRegistry(
+            @Value("${chat.presence.ttl-ms:60000}") long onlineTtlMillis,
+            @Value("${chat.presence.typing-ttl-ms:6000}") long typingTtlMillis,
+            MeterRegistry meterRegistry) {
+        this.online = new Table(onlineTtlMillis);
+        this.typing = new Table(typingTtlMillis);
+
+        // Large enough that no expiry wraps around to a slot that is due earlier
+        int slots = (int) (Math.max(onlineTtlMillis, typingTtlMillis) / TICK_MILLIS) + 2;
+        this.wheel = new Queue[slots];
+        for (int i = 0; i < slots; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.nextTick = System.currentTimeMillis() / TICK_MILLIS;
+        ticker.scheduleAtFixedRate(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+
+        Gauge.builder("chat.presence.online", online, Table::size).register(meterRegistry);
+        Gauge.builder("chat.presence.typing", typing, Table::size).register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        ticker.shutdownNow();
+    }
+
+    /**
+     * Refreshes the user's presence if they are already online.
+     * @return false if they are not, in which case the caller should verify and {@link #setOnline}
+     */
+    public boolean touchOnline(Long organizationId, Long userId) {
+        return online.touch(organizationId, userId);
+    }
+
+    public void setOnline(Long organizationId, Long userId) {
+        online.add(organizationId, organizationId, userId);
+    }
+
+    public void setOffline(Long organizationId, Long userId) {
+        online.remove(organizationId, userId);
+    }
+
+    /**
+     * @return false if the user is not already marked typing, see {@link #touchOnline}
+     */
+    public boolean touchTyping(Long chatRoomId, Long userId) {
+        return typing.touch(chatRoomId, userId);
+    }
+
+    public void setTyping(Long organizationId, Long chatRoomId, Long userId) {
+        typing.add(chatRoomId, organizationId, userId);
+    }
+
+    public void stopTyping(Long chatRoomId, Long userId) {
+        typing.remove(chatRoomId, userId);
+    }
+
+    /**
+     * Drops everything about a user who left the organization. Inside a transaction this happens
+     * once it commits: a heartbeat before then still passes the membership check and would put
+     * the user back, and a rollback must leave them online.
+     */
+    public void removeUser(Long organizationId, Long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    drop(organizationId, userId);
+                }
+            });
+        } else {
+            drop(organizationId, userId);
+        }
+    }
+
+    private void drop(Long organizationId, Long userId) {
+        online.remove(organizationId, userId);
+        typing.groups.forEach((chatRoomId, group) -> {
+            if (group.organizationId.equals(organizationId)) {
+                typing.remove(chatRoomId, userId);
+            }
+        });
+    }
+
+    /**
+     * @return ids of the organization's online users, ascending
+     */
+    public List<Long> online(Long organizationId) {
+        Group group = online.groups.get(organizationId);
+        return group != null ? group.userIds(online.ttlMillis) : List.of();
+    }
+
+    /**
+     * @param visible which of the organization's rooms to include
+     * @return ids of the users typing in each included room, by room id
+     */
+    public Map<Long, List<Long>> typing(Long organizationId, LongPredicate visible) {
+        Map<Long, List<Long>> typingByRoom = new TreeMap<>();
+        typing.groups.forEach((chatRoomId, group) -> {
+            if (group.organizationId.equals(organizationId) && visible.test(chatRoomId)) {
+                List<Long> userIds = group.userIds(typing.ttlMillis);
+                if (!userIds.isEmpty()) {
+                    typingByRoom.put(chatRoomId, userIds);
+                }
+            }
+        });
+        return typingByRoom;
+    }
+
+    private void tick() {
+        long now = System.currentTimeMillis();
+        // Catch up on ticks missed while the thread was delayed
+        for (long current = now / TICK_MILLIS; nextTick <= current; nextTick++) {
+            Queue<Entry> slot = wheel[(int) (nextTick % wheel.length)];
+            for (int pending = slot.size(); pending > 0; pending--) {
+                Entry entry = slot.poll();
+                if (entry == null) {
+                    break;
+                }
+                if (entry.removed) {
+                    continue;
+                }
+                long expiresAt = entry.lastSeen + entry.table.ttlMillis;
+                if (expiresAt <= now) {
+                    entry.table.expire(entry);
+                } else {
+                    schedule(entry, expiresAt);
+                }
+            }
+        }
+    }
+
+    private void schedule(Entry entry, long expiresAt) {
+        // Rounded up, so the slot is never one that has already been processed
+        long tick = Math.max((expiresAt + TICK_MILLIS - 1) / TICK_MILLIS, nextTick);
+        wheel[(int) (tick % wheel.length)].add(entry);
+    }
+
+    /**
+     * One user's presence in one group; refreshed in place by heartbeats.
+     */
+    private static final class Entry {
+        final Table table;
+        final Long key;
+        final Long userId;
+        volatile long lastSeen = System.currentTimeMillis();
+        volatile boolean removed;
+
+        Entry(Table table, Long key, Long userId) {
+            this.table = table;
+            this.key = key;
+            this.userId = userId;
+        }
+    }
+
+    /**
+     * The users present under one key (an organization, or a chat room for typing).
+     */
+    private static final class Group {
+        final Long organizationId;
+        final Map<Long, Entry> users = new ConcurrentHashMap<>();
+
+        Group(Long organizationId) {
+            this.organizationId = organizationId;
+        }
+
+        // Entries the wheel has not reached yet are left out once they are past their expiry
+        List<Long> userIds(long ttlMillis) {
+            long expiredBefore = System.currentTimeMillis() - ttlMillis;
+            List<Long> userIds = new ArrayList<>(users.size());
+            users.forEach((userId, entry) -> {
+                if (entry.lastSeen > expiredBefore) {
+                    userIds.add(userId);
+                }
+            });
+            userIds.sort(null);
+            return userIds;
+        }
+    }
+
+    private final class Table {
+        final long ttlMillis;
+        final Map<Long, Group> groups = new ConcurrentHashMap<>();
+
+        Table(long ttlMillis) {
+            this.ttlMillis = ttlMillis;
+        }
+
+        boolean touch(Long key, Long userId) {
+            Group group = groups.get(key);
+            Entry entry = group != null ? group.users.get(userId) : null;
+            if (entry == null) {
+                return false;
+            }
+            entry.lastSeen = System.currentTimeMillis();
+            // Lost a race with expiry; the caller adds a fresh entry
+            return !entry.removed;
+        }
+
+        void add(Long key, Long organizationId, Long userId) {
+            Entry entry = new Entry(this, key, userId);
+            Entry[] added = { null };
+            // Groups are created and dropped under the map's lock so an entry never lands in a dropped group
+            groups.compute(key, (k, group) -> {
+                Group target = group != null ? group : new Group(organizationId);
+                Entry existing = target.users.get(userId);
+                if (existing == null || existing.removed) {
+                    target.users.put(userId, entry);
+                    added[0] = entry;
+                } else {
+                    existing.lastSeen = entry.lastSeen;
+                }
+                return target;
+            });
+            if (added[0] != null) {
+                schedule(added[0], added[0].lastSeen + ttlMillis);
+            }
+        }
+
+        void remove(Long key, Long userId) {
+            groups.computeIfPresent(key, (k, group) -> {
+                Entry entry = group.users.remove(userId);
+                if (entry != null) {
+                    entry.removed = true;
+                }
+                return group.users.isEmpty() ? null : group;
+            });
+        }
+
+        void expire(Entry entry) {
+            groups.computeIfPresent(entry.key, (k, group) -> {
+                if (group.users.remove(entry.userId, entry)) {
+                    entry.removed = true;
+                }
+                return group.users.isEmpty() ? null : group;
+            });
+        }
+
+        int size() {
+            return groups.values().stream().mapToInt(group -> group.users.size()).sum();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.melon.app.service.chat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Buffers read-marker updates so that clients marking a room read on every scroll or focus
+ * event do not each cost a database write.
+ *
+ * Only the newest marker per (room, user) is kept. Every chat.read-markers.flush-interval-ms
+ * the buffered markers are written with one batched UPDATE in one transaction. A marker
+ * leaves the buffer only once that transaction has committed, and reads combine the stored
+ * position with {@link #lastReadSeq}, so a new marker is visible to reads immediately.
+ * Markers still buffered at shutdown are flushed before the application stops.
+ */
+@Component
+public class ReadMarkerBuffer {
+    private static final Logger logger = LoggerFactory.getLogger(ReadMarkerBuffer.class);
+
+    // Never moves a read position backwards if an older marker is flushed late
+    private static final String UPDATE_SQL =
+        "UPDATE chat_room_members SET last_read = ?, " +
+        "last_read_seq = CASE WHEN last_read_seq IS NULL OR last_read_seq < ? THEN ? ELSE last_read_seq END " +
+        "WHERE chat_room_id = ? AND user_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long flushIntervalMillis;
+
+    private final Map<Key, Marker> markers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor =
+        Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("chat-read-markers").daemon().factory());
+
+    public ReadMarkerBuffer(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            @Value("${chat.read-markers.flush-interval-ms:1000}") long flushIntervalMillis,
+            MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.flushIntervalMillis = flushIntervalMillis;
+        Gauge.builder("chat.read-markers.pending", markers, Map::size).register(meterRegistry);
+    }
+
+    private record Key(Long chatRoomId, Long userId) {}
+
+    private record Marker(long lastReadSeq, LocalDateTime lastRead) {}
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        flushQuietly();
+    }
+
+    /**
+     * Records that the user has read the room up to the given message counter.
+     */
+    public void markRead(Long chatRoomId, Long userId, long lastReadSeq, LocalDateTime lastRead) {
+        markers.merge(new Key(chatRoomId, userId), new Marker(lastReadSeq, lastRead),
+            (buffered, marker) -> new Marker(Math.max(buffered.lastReadSeq(), marker.lastReadSeq()), marker.lastRead()));
+    }
+
+    /**
+     * @param storedLastReadSeq the user's read position as stored in chat_room_members
+     * @return the user's read position including any marker that has not been flushed yet
+     */
+    public long lastReadSeq(Long chatRoomId, Long userId, long storedLastReadSeq) {
+        Marker marker = markers.get(new Key(chatRoomId, userId));
+        return marker != null ? Math.max(marker.lastReadSeq(), storedLastReadSeq) : storedLastReadSeq;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // The markers stay buffered and are retried on the next flush
+            logger.error("Failed to flush chat read markers", e);
+        }
+    }
+
+    /**
+     * Writes every buffered marker.
+     * @return the number of markers written
+     */
+    public int flush() {
+        // Copied so each entry keeps the marker that was written, whatever happens to the map
+        List<Map.Entry<Key, Marker>> batch = new ArrayList<>(markers.size());
+        markers.forEach((key, marker) -> batch.add(Map.entry(key, marker)));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPDATE_SQL, batch.stream()
+            .map(entry -> new Object[] {
+                entry.getValue().lastRead(), entry.getValue().lastReadSeq(), entry.getValue().lastReadSeq(),
+                entry.getKey().chatRoomId(), entry.getKey().userId() })
+            .toList()));
+
+        // Markers that were replaced during the flush stay for the next one
+        batch.forEach(entry -> markers.remove(entry.getKey(), entry.getValue()));
+        return batch.size();
+    }
+}
@@ -0,0 +1,436 @@
+package com.melon.app.service.chat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.melon.app.controller.DTO.ChatRoomDTO.MessageDTO;
+import com.melon.app.controller.DTO.ChatRoomDTO.MessageReactionsDTO;
+import com.melon.app.controller.DTO.MessageCursor;
+import com.melon.app.entity.chat.Reaction;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Keeps the newest messages of recently active chat rooms in memory so the common
+ * "open a room" request does not have to go through Hibernate and the database.
+ *
+ * Each room gets a fixed-size ring buffer of immutable {@link CachedMessage}s. A buffer is
+ * only served once it has been filled from the database; after that, committed messages
+ * are appended as they are sent. Only top-level messages are kept; a committed reply just
+ * updates the thread summary of its parent if the parent is cached. When the total estimated size of all buffers exceeds
+ * the configured budget, the least recently read rooms are dropped.
+ */
+@Component
+public class RecentMessageCache {
+    // Rough per-message overhead (object headers, boxed ids, timestamp) on top of string data
+    private static final int MESSAGE_OVERHEAD_BYTES = 96;
+    // Rough size of an empty room buffer excluding its ring slots
+    private static final int ROOM_OVERHEAD_BYTES = 128;
+    // Rough size of one reaction count entry
+    private static final int REACTION_BYTES = 48;
+
+    private final int roomCapacity;
+    private final long maxBytes;
+
+    private final Map<Long, RoomBuffer> rooms = new ConcurrentHashMap<>();
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public RecentMessageCache(
+            @Value("${chat.cache.room-capacity:100}") int roomCapacity,
+            @Value("${chat.cache.max-bytes:33554432}") long maxBytes,
+            MeterRegistry meterRegistry) {
+        this.roomCapacity = roomCapacity;
+        this.maxBytes = maxBytes;
+
+        FunctionCounter.builder("chat.cache.requests", hits, AtomicLong::get)
+            .tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("chat.cache.requests", misses, AtomicLong::get)
+            .tag("result", "miss").register(meterRegistry);
+        FunctionCounter.builder("chat.cache.evictions", evictions, AtomicLong::get)
+            .register(meterRegistry);
+        Gauge.builder("chat.cache.rooms", rooms, Map::size).register(meterRegistry);
+        Gauge.builder("chat.cache.bytes", totalBytes, AtomicLong::get).register(meterRegistry);
+    }
+
+    /**
+     * Immutable snapshot of a message as it is served from the cache.
+     * @param reactions non-zero reaction counts; shared by every DTO made from this message
+     * @param latestReply preview of the newest reply for top-level messages with replies
+     */
+    public record CachedMessage(Long id, Long seq, Long senderId, String senderUsername, String content,
+                                LocalDateTime sentAt, boolean edited, Map<Reaction, Integer> reactions,
+                                Long parentId, int replyCount, CachedMessage latestReply) {
+
+        public static CachedMessage fromDto(MessageDTO dto) {
+            return new CachedMessage(dto.getId(), dto.getSeq(), dto.getSenderId(), dto.getSenderUsername(),
+                dto.getContent(), dto.getSentAt(), dto.isEdited(), Collections.unmodifiableMap(dto.getReactions()),
+                dto.getParentId(), dto.getReplyCount(),
+                dto.getLatestReply() != null ? fromDto(dto.getLatestReply()) : null);
+        }
+
+        CachedMessage withLatestReply(CachedMessage reply) {
+            return new CachedMessage(id, seq, senderId, senderUsername, content, sentAt, edited, reactions,
+                parentId, replyCount, reply);
+        }
+
+        CachedMessage withReactions(Map<Reaction, Integer> counts) {
+            return new CachedMessage(id, seq, senderId, senderUsername, content, sentAt, edited,
+                Collections.unmodifiableMap(counts), parentId, replyCount, latestReply);
+        }
+
+        CachedMessage withReply(CachedMessage reply) {
+            // Replies can commit out of order; the preview stays on the newest one
+            boolean newer = latestReply == null || reply.compareTo(latestReply) > 0;
+            return new CachedMessage(id, seq, senderId, senderUsername, content, sentAt, edited, reactions,
+                parentId, replyCount + 1, newer ? reply : latestReply);
+        }
+
+        public MessageDTO toDto(Long currentUserId) {
+            MessageDTO dto = new MessageDTO();
+            dto.setId(id);
+            dto.setSeq(seq);
+            dto.setSenderId(senderId);
+            dto.setSenderUsername(senderUsername);
+            dto.setContent(content);
+            dto.setSentAt(sentAt);
+            dto.setEdited(edited);
+            dto.setOwn(senderId.equals(currentUserId));
+            dto.setParentId(parentId);
+            dto.setReplyCount(replyCount);
+            dto.setLatestReply(latestReply != null ? latestReply.toDto(currentUserId) : null);
+            dto.setReactions(reactions);
+            dto.setMyReactions(List.of());
+            return dto;
+        }
+
+        private int compareTo(CachedMessage other) {
+            int bySentAt = sentAt.compareTo(other.sentAt);
+            return bySentAt != 0 ? bySentAt : id.compareTo(other.id);
+        }
+
+        private int compareTo(MessageCursor cursor) {
+            int bySentAt = sentAt.compareTo(cursor.sentAt());
+            return bySentAt != 0 ? bySentAt : id.compareTo(cursor.id());
+        }
+
+        private long estimatedBytes() {
+            return MESSAGE_OVERHEAD_BYTES
+                + REACTION_BYTES * reactions.size()
+                + (latestReply != null ? latestReply.estimatedBytes() : 0)
+                + 2L * (content != null ? content.length() : 0)
+                + 2L * (senderUsername != null ? senderUsername.length() : 0);
+        }
+    }
+
+    /**
+     * Messages of a room in display order (oldest first).
+     * @param hasMore whether the room has more messages in the direction that was read
+     */
+    public record CachedPage(List<CachedMessage> messages, boolean hasMore) {}
+
+    /**
+     * @return the newest {@code limit} messages of the room, or empty if the room is not cached
+     */
+    public Optional<CachedPage> latest(Long chatRoomId, int limit) {
+        RoomBuffer buffer = rooms.get(chatRoomId);
+        CachedPage page = buffer != null ? buffer.latest(limit) : null;
+        if (page == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        hits.incrementAndGet();
+        return Optional.of(page);
+    }
+
+    /**
+     * Serves a catch-up read. Only answers when the cursor falls within the cached messages, so
+     * nothing between the cursor and the cache can be missing.
+     * @return the oldest {@code limit} messages newer than the cursor, with hasMore set if there
+     *         are newer ones still, or empty if the cache cannot answer
+     */
+    public Optional<CachedPage> after(Long chatRoomId, MessageCursor after, int limit) {
+        RoomBuffer buffer = rooms.get(chatRoomId);
+        CachedPage page = buffer != null ? buffer.after(after, limit) : null;
+        if (page == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        hits.incrementAndGet();
+        return Optional.of(page);
+    }
+
+    /**
+     * Starts filling a room after a miss. The returned token must be passed to
+     * {@link #fill} so that a fill racing with a concurrent send is discarded rather than
+     * installing a page that is already missing the new message.
+     */
+    public long beginFill(Long chatRoomId) {
+        RoomBuffer buffer = rooms.computeIfAbsent(chatRoomId, id -> new RoomBuffer());
+        long token = buffer.version();
+        enforceBudget();
+        return token;
+    }
+
+    /**
+     * @param messages the room's newest messages as loaded from the database, oldest first
+     * @param hasOlder whether the database holds messages older than these
+     */
+    public void fill(Long chatRoomId, long token, List<CachedMessage> messages, boolean hasOlder) {
+        if (messages.size() > roomCapacity) {
+            messages = messages.subList(messages.size() - roomCapacity, messages.size());
+            hasOlder = true;
+        }
+        RoomBuffer buffer = rooms.get(chatRoomId);
+        if (buffer != null && buffer.fill(token, messages, hasOlder)) {
+            enforceBudget();
+        }
+    }
+
+    // Runs before MessagePollRegistry wakes parked polls, which read from this cache
+    @TransactionalEventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onMessageSent(ChatMessageSentEvent event) {
+        RoomBuffer buffer = rooms.get(event.chatRoomId());
+        if (buffer == null) {
+            return;
+        }
+        CachedMessage message = CachedMessage.fromDto(event.message());
+        boolean grown = message.parentId() != null ? buffer.recordReply(message) : buffer.append(message);
+        if (grown) {
+            enforceBudget();
+        }
+    }
+
+    @TransactionalEventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onReactionsChanged(MessageReactionsChangedEvent event) {
+        RoomBuffer buffer = rooms.get(event.chatRoomId());
+        if (buffer != null) {
+            MessageReactionsDTO reactions = event.reactions();
+            buffer.updateReactions(reactions.getMessageId(), reactions.getReactions());
+        }
+    }
+
+    public void invalidate(Long chatRoomId) {
+        RoomBuffer buffer = rooms.remove(chatRoomId);
+        if (buffer != null) {
+            buffer.discard();
+        }
+    }
+
+    /**
+     * Drops the least recently read rooms until the cache fits in its memory budget.
+     */
+    private void enforceBudget() {
+        if (totalBytes.get() <= maxBytes) {
+            return;
+        }
+        synchronized (this) {
+            while (totalBytes.get() > maxBytes) {
+                Map.Entry<Long, RoomBuffer> coldest = null;
+                for (Map.Entry<Long, RoomBuffer> entry : rooms.entrySet()) {
+                    if (coldest == null || entry.getValue().lastAccess < coldest.getValue().lastAccess) {
+                        coldest = entry;
+                    }
+                }
+                if (coldest == null) {
+                    return;
+                }
+                if (rooms.remove(coldest.getKey(), coldest.getValue())) {
+                    coldest.getValue().discard();
+                    evictions.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Ring buffer of one room's newest messages, kept sorted by (sentAt, id).
+     * All access goes through the buffer's own monitor.
+     */
+    private class RoomBuffer {
+        private final CachedMessage[] ring = new CachedMessage[roomCapacity];
+        private int head; // index of the oldest message
+        private int size;
+        private long bytes;
+        private boolean warm;
+        private boolean hasOlder;
+        private boolean discarded;
+        private long version;
+        private volatile long lastAccess = System.nanoTime();
+
+        RoomBuffer() {
+            adjustBytes(ROOM_OVERHEAD_BYTES + 4L * ring.length);
+        }
+
+        synchronized long version() {
+            return version;
+        }
+
+        synchronized CachedPage latest(int limit) {
+            if (!warm || discarded) {
+                return null;
+            }
+            lastAccess = System.nanoTime();
+            int count = Math.min(limit, size);
+            List<CachedMessage> page = new ArrayList<>(count);
+            for (int i = size - count; i < size; i++) {
+                page.add(get(i));
+            }
+            return new CachedPage(Collections.unmodifiableList(page), size > count || hasOlder);
+        }
+
+        synchronized CachedPage after(MessageCursor cursor, int limit) {
+            if (!warm || discarded || (hasOlder && (size == 0 || get(0).compareTo(cursor) > 0))) {
+                return null;
+            }
+            lastAccess = System.nanoTime();
+            int start = size;
+            while (start > 0 && get(start - 1).compareTo(cursor) > 0) {
+                start--;
+            }
+            int end = Math.min(size, start + limit);
+            List<CachedMessage> page = new ArrayList<>(end - start);
+            for (int i = start; i < end; i++) {
+                page.add(get(i));
+            }
+            return new CachedPage(Collections.unmodifiableList(page), end < size);
+        }
+
+        synchronized boolean fill(long token, List<CachedMessage> messages, boolean older) {
+            if (discarded || token != version) {
+                return false;
+            }
+            clear();
+            for (CachedMessage message : messages) {
+                ring[(head + size) % ring.length] = message;
+                size++;
+                adjustBytes(message.estimatedBytes());
+            }
+            hasOlder = older;
+            warm = true;
+            lastAccess = System.nanoTime();
+            return true;
+        }
+
+        synchronized boolean append(CachedMessage message) {
+            // Any pending fill may have read the database before this message committed
+            version++;
+            if (!warm || discarded) {
+                return false;
+            }
+
+            // Find the insertion point from the newest end; sends usually arrive in order
+            int position = size;
+            while (position > 0 && get(position - 1).compareTo(message) > 0) {
+                position--;
+            }
+
+            if (size == ring.length) {
+                if (position == 0) {
+                    return false; // older than everything we keep
+                }
+                adjustBytes(-get(0).estimatedBytes());
+                ring[head] = null;
+                head = (head + 1) % ring.length;
+                size--;
+                position--;
+                hasOlder = true;
+            }
+
+            for (int i = size; i > position; i--) {
+                ring[(head + i) % ring.length] = get(i - 1);
+            }
+            ring[(head + position) % ring.length] = message;
+            size++;
+            adjustBytes(message.estimatedBytes());
+            return true;
+        }
+
+        synchronized void updateReactions(Long messageId, Map<Reaction, Integer> counts) {
+            // A pending fill may have read the old counts
+            version++;
+            if (!warm || discarded) {
+                return;
+            }
+            for (int i = size - 1; i >= 0; i--) {
+                CachedMessage message = get(i);
+                if (message.id().equals(messageId)) {
+                    replace(i, message.withReactions(counts));
+                    return;
+                }
+                CachedMessage reply = message.latestReply();
+                if (reply != null && reply.id().equals(messageId)) {
+                    replace(i, message.withLatestReply(reply.withReactions(counts)));
+                    return;
+                }
+            }
+        }
+
+        synchronized boolean recordReply(CachedMessage reply) {
+            // A pending fill may have read the parent before this reply committed
+            version++;
+            if (!warm || discarded) {
+                return false;
+            }
+            for (int i = size - 1; i >= 0; i--) {
+                CachedMessage message = get(i);
+                if (message.id().equals(reply.parentId())) {
+                    replace(i, message.withReply(reply));
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void replace(int index, CachedMessage updated) {
+            adjustBytes(updated.estimatedBytes() - get(index).estimatedBytes());
+            ring[(head + index) % ring.length] = updated;
+        }
+
+        synchronized void discard() {
+            if (!discarded) {
+                clear();
+                adjustBytes(-bytes);
+                discarded = true;
+            }
+        }
+
+        private CachedMessage get(int index) {
+            return ring[(head + index) % ring.length];
+        }
+
+        private void clear() {
+            for (int i = 0; i < size; i++) {
+                adjustBytes(-get(i).estimatedBytes());
+            }
+            Arrays.fill(ring, null);
+            head = 0;
+            size = 0;
+            warm = false;
+        }
+
+        private void adjustBytes(long delta) {
+            bytes += delta;
+            totalBytes.addAndGet(delta);
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package com.melon.app.service.chat.archive;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.melon.app.controller.DTO.MessageCursor;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Cold storage for chat messages that {@link MessageArchiver} has moved out of the messages table.
+ *
+ * Each room has a directory of gzip-compressed segment files, written once and never modified,
+ * plus a small segments.idx listing every segment with the (sentAt, id) range it covers. Segments
+ * are appended in history order, so everything in a room's archive is older than everything
+ * still in the table; {@link #boundary} is the newest archived position.
+ */
+@Component
+public class MessageArchive {
+    private static final Logger logger = LoggerFactory.getLogger(MessageArchive.class);
+
+    private static final String ROOM_DIRECTORY_PREFIX = "room-";
+    private static final String SEGMENT_INDEX_FILE = "segments.idx";
+    private static final int MAGIC = 0x4D534152; // "MSAR"
+    // Version 2 added the message sequence number, version 3 the reaction counts and version 4
+    // the thread summary; older segments are read without them
+    private static final int VERSION = 4;
+    // Decompressed segments kept around for paging through the same part of history
+    private static final int DECODED_SEGMENT_CACHE_SIZE = 16;
+
+    /**
+     * Only top-level messages are archived; replies stay in the table with their thread.
+     */
+    public record ArchivedMessage(Long id, Long seq, Long senderId, String content, LocalDateTime sentAt, boolean edited,
+                                  String reactionCounts, int replyCount, Long lastReplyId) {
+        public MessageCursor cursor() {
+            return new MessageCursor(sentAt, id);
+        }
+    }
+
+    /**
+     * One segment file and the messages it covers.
+     * @param first oldest message in history order
+     * @param last newest message in history order
+     */
+    private record SegmentInfo(String file, int count, MessageCursor first, MessageCursor last, long minId, long maxId) {
+
+        String toLine() {
+            return String.join(" ", file, Integer.toString(count), first.sentAt().toString(), first.id().toString(),
+                last.sentAt().toString(), last.id().toString(), Long.toString(minId), Long.toString(maxId));
+        }
+
+        static SegmentInfo parse(String line) {
+            String[] parts = line.trim().split(" ");
+            return new SegmentInfo(parts[0], Integer.parseInt(parts[1]),
+                new MessageCursor(LocalDateTime.parse(parts[2]), Long.parseLong(parts[3])),
+                new MessageCursor(LocalDateTime.parse(parts[4]), Long.parseLong(parts[5])),
+                Long.parseLong(parts[6]), Long.parseLong(parts[7]));
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Path directory;
+    private final Map<Long, List<SegmentInfo>> segmentsByRoom = new ConcurrentHashMap<>();
+    private final Map<Path, List<ArchivedMessage>> decodedSegments = Collections.synchronizedMap(
+        new LinkedHashMap<>(DECODED_SEGMENT_CACHE_SIZE, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, List<ArchivedMessage>> eldest) {
+                return size() > DECODED_SEGMENT_CACHE_SIZE;
+            }
+        });
+
+    public MessageArchive(
+            JdbcTemplate jdbcTemplate,
+            @Value("${chat.archive.dir:${user.home}/planly-chat-archive}") String directory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.directory = Paths.get(directory);
+    }
+
+    @PostConstruct
+    void load() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> roomDirectories = Files.newDirectoryStream(directory, ROOM_DIRECTORY_PREFIX + "*")) {
+            for (Path roomDirectory : roomDirectories) {
+                Long chatRoomId = parseRoomId(roomDirectory);
+                Path index = roomDirectory.resolve(SEGMENT_INDEX_FILE);
+                if (chatRoomId == null || !Files.exists(index)) {
+                    continue;
+                }
+                List<SegmentInfo> segments = Files.readAllLines(index, StandardCharsets.UTF_8).stream()
+                    .filter(line -> !line.isBlank())
+                    .map(SegmentInfo::parse)
+                    .toList();
+                if (!segments.isEmpty()) {
+                    segmentsByRoom.put(chatRoomId, segments);
+                }
+            }
+        }
+        logger.info("Chat message archive loaded: {} rooms", segmentsByRoom.size());
+    }
+
+    /**
+     * Removes archives of rooms that were deleted while the application was down.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void pruneDeletedRooms() {
+        if (segmentsByRoom.isEmpty()) {
+            return;
+        }
+        Set<Long> existingRooms = new HashSet<>(jdbcTemplate.queryForList("SELECT id FROM chat_rooms", Long.class));
+        for (Long chatRoomId : List.copyOf(segmentsByRoom.keySet())) {
+            if (!existingRooms.contains(chatRoomId)) {
+                removeRoom(chatRoomId);
+            }
+        }
+    }
+
+    public boolean hasMessages(Long chatRoomId) {
+        return segmentsByRoom.containsKey(chatRoomId);
+    }
+
+    /**
+     * @return the newest archived position of the room; every message at or before it is in the archive
+     */
+    public Optional<MessageCursor> boundary(Long chatRoomId) {
+        List<SegmentInfo> segments = segmentsByRoom.get(chatRoomId);
+        return segments == null ? Optional.empty() : Optional.of(segments.get(segments.size() - 1).last());
+    }
+
+    /**
+     * Writes a new segment for the room. The messages must be in history order and newer than the
+     * room's current boundary. Returns once the segment and the room's index are on disk.
+     * @return the room's new boundary
+     */
+    public synchronized MessageCursor append(Long chatRoomId, List<ArchivedMessage> messages) throws IOException {
+        MessageCursor first = messages.get(0).cursor();
+        MessageCursor last = messages.get(messages.size() - 1).cursor();
+        Optional<MessageCursor> boundary = boundary(chatRoomId);
+        if (boundary.isPresent() && first.compareTo(boundary.get()) <= 0) {
+            throw new IllegalArgumentException("Archived messages must be newer than the archive boundary");
+        }
+
+        List<SegmentInfo> existing = segmentsByRoom.getOrDefault(chatRoomId, List.of());
+        Path roomDirectory = roomDirectory(chatRoomId);
+        Files.createDirectories(roomDirectory);
+        String file = String.format("seg-%08d.gz", existing.size());
+        writeSegment(roomDirectory.resolve(file), messages);
+
+        long minId = messages.stream().mapToLong(ArchivedMessage::id).min().orElseThrow();
+        long maxId = messages.stream().mapToLong(ArchivedMessage::id).max().orElseThrow();
+        List<SegmentInfo> segments = new ArrayList<>(existing);
+        segments.add(new SegmentInfo(file, messages.size(), first, last, minId, maxId));
+
+        Path index = roomDirectory.resolve(SEGMENT_INDEX_FILE);
+        Path temp = roomDirectory.resolve(SEGMENT_INDEX_FILE + ".tmp");
+        Files.write(temp, segments.stream().map(SegmentInfo::toLine).toList(), StandardCharsets.UTF_8);
+        Files.move(temp, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        segmentsByRoom.put(chatRoomId, List.copyOf(segments));
+        return last;
+    }
+
+    /**
+     * @param before exclusive upper bound, or null to start from the newest archived message
+     * @return up to {@code limit} messages older than the cursor, newest first
+     */
+    public List<ArchivedMessage> findBefore(Long chatRoomId, MessageCursor before, int limit) {
+        List<SegmentInfo> segments = segmentsByRoom.getOrDefault(chatRoomId, List.of());
+        List<ArchivedMessage> result = new ArrayList<>(limit);
+        for (int s = segments.size() - 1; s >= 0 && result.size() < limit; s--) {
+            SegmentInfo segment = segments.get(s);
+            if (before != null && segment.first().compareTo(before) >= 0) {
+                continue;
+            }
+            List<ArchivedMessage> messages = read(chatRoomId, segment);
+            for (int i = messages.size() - 1; i >= 0 && result.size() < limit; i--) {
+                if (before == null || messages.get(i).cursor().compareTo(before) < 0) {
+                    result.add(messages.get(i));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return up to {@code limit} messages newer than the cursor, oldest first
+     */
+    public List<ArchivedMessage> findAfter(Long chatRoomId, MessageCursor after, int limit) {
+        List<SegmentInfo> segments = segmentsByRoom.getOrDefault(chatRoomId, List.of());
+        List<ArchivedMessage> result = new ArrayList<>(limit);
+        for (int s = 0; s < segments.size() && result.size() < limit; s++) {
+            SegmentInfo segment = segments.get(s);
+            if (segment.last().compareTo(after) <= 0) {
+                continue;
+            }
+            for (ArchivedMessage message : read(chatRoomId, segment)) {
+                if (result.size() == limit) {
+                    break;
+                }
+                if (message.cursor().compareTo(after) > 0) {
+                    result.add(message);
+                }
+            }
+        }
+        return result;
+    }
+
+    public List<ArchivedMessage> findByIds(Long chatRoomId, Collection<Long> ids) {
+        List<ArchivedMessage> result = new ArrayList<>();
+        Set<Long> wanted = new HashSet<>(ids);
+        for (SegmentInfo segment : segmentsByRoom.getOrDefault(chatRoomId, List.of())) {
+            boolean inRange = wanted.stream().anyMatch(id -> id >= segment.minId() && id <= segment.maxId());
+            if (!inRange) {
+                continue;
+            }
+            for (ArchivedMessage message : read(chatRoomId, segment)) {
+                if (wanted.contains(message.id())) {
+                    result.add(message);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Visits every archived message of every room, in history order per room.
+     */
+    public void forEachMessage(BiConsumer<Long, ArchivedMessage> consumer) {
+        segmentsByRoom.forEach((chatRoomId, segments) -> {
+            for (SegmentInfo segment : segments) {
+                readSegment(roomDirectory(chatRoomId).resolve(segment.file()))
+                    .forEach(message -> consumer.accept(chatRoomId, message));
+            }
+        });
+    }
+
+    public synchronized void removeRoom(Long chatRoomId) {
+        segmentsByRoom.remove(chatRoomId);
+        Path roomDirectory = roomDirectory(chatRoomId);
+        decodedSegments.keySet().removeIf(path -> path.startsWith(roomDirectory));
+        if (!Files.exists(roomDirectory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(roomDirectory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to delete the message archive of chat room {}", chatRoomId, e);
+        }
+    }
+
+    private List<ArchivedMessage> read(Long chatRoomId, SegmentInfo segment) {
+        Path file = roomDirectory(chatRoomId).resolve(segment.file());
+        List<ArchivedMessage> messages = decodedSegments.get(file);
+        if (messages == null) {
+            messages = readSegment(file);
+            decodedSegments.put(file, messages);
+        }
+        return messages;
+    }
+
+    private void writeSegment(Path file, List<ArchivedMessage> messages) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileOutputStream fileOut = new FileOutputStream(temp.toFile())) {
+            GZIPOutputStream gzip = new GZIPOutputStream(fileOut);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(gzip));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(messages.size());
+            for (ArchivedMessage message : messages) {
+                byte[] content = message.content() != null ? message.content().getBytes(StandardCharsets.UTF_8) : new byte[0];
+                out.writeLong(message.id());
+                out.writeBoolean(message.seq() != null);
+                out.writeLong(message.seq() != null ? message.seq() : 0);
+                out.writeLong(message.senderId());
+                out.writeUTF(message.sentAt().toString());
+                out.writeBoolean(message.edited());
+                out.writeUTF(message.reactionCounts() != null ? message.reactionCounts() : "");
+                out.writeInt(message.replyCount());
+                out.writeLong(message.lastReplyId() != null ? message.lastReplyId() : 0);
+                out.writeInt(content.length);
+                out.write(content);
+            }
+            out.flush();
+            gzip.finish();
+            // The rows are deleted from the database once this returns, so the file must be durable
+            fileOut.getFD().sync();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private List<ArchivedMessage> readSegment(Path file) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file))))) {
+            int version = in.readInt() == MAGIC ? in.readInt() : -1;
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Not a message archive segment: " + file);
+            }
+            int count = in.readInt();
+            List<ArchivedMessage> messages = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                long id = in.readLong();
+                Long seq = null;
+                if (version >= 2) {
+                    boolean hasSeq = in.readBoolean();
+                    long value = in.readLong();
+                    seq = hasSeq ? value : null;
+                }
+                long senderId = in.readLong();
+                LocalDateTime sentAt = LocalDateTime.parse(in.readUTF());
+                boolean edited = in.readBoolean();
+                String reactionCounts = null;
+                if (version >= 3) {
+                    String value = in.readUTF();
+                    reactionCounts = value.isEmpty() ? null : value;
+                }
+                int replyCount = 0;
+                Long lastReplyId = null;
+                if (version >= 4) {
+                    replyCount = in.readInt();
+                    long value = in.readLong();
+                    lastReplyId = value != 0 ? value : null;
+                }
+                byte[] content = new byte[in.readInt()];
+                in.readFully(content);
+                messages.add(new ArchivedMessage(id, seq, senderId, new String(content, StandardCharsets.UTF_8), sentAt, edited,
+                    reactionCounts, replyCount, lastReplyId));
+            }
+            return Collections.unmodifiableList(messages);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read message archive segment " + file, e);
+        }
+    }
+
+    private Path roomDirectory(Long chatRoomId) {
+        return directory.resolve(ROOM_DIRECTORY_PREFIX + chatRoomId);
+    }
+
+    private Long parseRoomId(Path roomDirectory) {
+        try {
+            return Long.parseLong(roomDirectory.getFileName().toString().substring(ROOM_DIRECTORY_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
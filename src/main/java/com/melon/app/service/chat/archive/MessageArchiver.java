@@ -0,0 +1,163 @@
+package com.melon.app.service.chat.archive;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import com.melon.app.controller.DTO.MessageCursor;
+import com.melon.app.service.chat.archive.MessageArchive.ArchivedMessage;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Background job (chat.archive.enabled) that moves messages older than chat.archive.max-age-days
+ * from the messages table into the {@link MessageArchive}.
+ *
+ * Rooms are archived oldest first in batches. Each batch is written to a segment before it is
+ * deleted from the table, so a crash in between at worst leaves rows in both places; those are
+ * deleted on the next run. A room's newest message is never archived, since the room list shows
+ * it as a preview. Only top-level messages are archived; replies stay in the table so threads
+ * are always read from one place.
+ */
+@Component
+public class MessageArchiver {
+    private static final Logger logger = LoggerFactory.getLogger(MessageArchiver.class);
+
+    // Deleted rooms are left to the purger
+    private static final String ROOMS_SQL =
+        "SELECT DISTINCT m.chat_room_id FROM messages m JOIN chat_rooms cr ON cr.id = m.chat_room_id " +
+        "WHERE m.sent_at < ? AND m.parent_id IS NULL AND cr.deleted_at IS NULL";
+
+    private static final String LAST_MESSAGE_SQL =
+        "SELECT m.sent_at, m.id FROM messages m JOIN chat_rooms cr ON cr.last_message_id = m.id WHERE cr.id = ?";
+
+    // Messages older than the cutoff and strictly before the room's newest message
+    private static final String BATCH_SQL =
+        "SELECT id, seq, sender_id, content, sent_at, is_edited, reaction_counts, reply_count, last_reply_id " +
+        "FROM messages WHERE chat_room_id = ? AND parent_id IS NULL AND sent_at < ? " +
+        "AND (sent_at < ? OR (sent_at = ? AND id < ?)) " +
+        "ORDER BY sent_at, id LIMIT ?";
+
+    private static final String DELETE_ARCHIVED_SQL =
+        "DELETE FROM messages WHERE chat_room_id = ? AND parent_id IS NULL AND (sent_at < ? OR (sent_at = ? AND id <= ?))";
+
+    private static final RowMapper<ArchivedMessage> ROW_MAPPER = (rs, rowNum) -> new ArchivedMessage(
+        rs.getLong("id"),
+        rs.getObject("seq", Long.class),
+        rs.getLong("sender_id"),
+        rs.getString("content"),
+        rs.getTimestamp("sent_at").toLocalDateTime(),
+        rs.getBoolean("is_edited"),
+        rs.getString("reaction_counts"),
+        rs.getInt("reply_count"),
+        rs.getObject("last_reply_id", Long.class));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MessageArchive messageArchive;
+    private final boolean enabled;
+    private final Duration maxAge;
+    private final long intervalMillis;
+    private final int batchSize;
+    private ScheduledExecutorService executor;
+
+    public MessageArchiver(
+            JdbcTemplate jdbcTemplate,
+            MessageArchive messageArchive,
+            @Value("${chat.archive.enabled:false}") boolean enabled,
+            @Value("${chat.archive.max-age-days:90}") long maxAgeDays,
+            @Value("${chat.archive.interval-ms:3600000}") long intervalMillis,
+            @Value("${chat.archive.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.messageArchive = messageArchive;
+        this.enabled = enabled;
+        this.maxAge = Duration.ofDays(maxAgeDays);
+        this.intervalMillis = intervalMillis;
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("chat-archiver").daemon().factory());
+        executor.scheduleWithFixedDelay(this::archiveQuietly, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (executor != null) {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private void archiveQuietly() {
+        try {
+            archiveOldMessages();
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to archive old chat messages", e);
+        }
+    }
+
+    /**
+     * Archives every message older than the configured age.
+     * @return the number of messages archived
+     */
+    public int archiveOldMessages() throws IOException {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minus(maxAge));
+        int archived = 0;
+        for (Long chatRoomId : jdbcTemplate.queryForList(ROOMS_SQL, Long.class, cutoff)) {
+            archived += archiveRoom(chatRoomId, cutoff);
+        }
+        if (archived > 0) {
+            logger.info("Archived {} chat messages", archived);
+        }
+        return archived;
+    }
+
+    private int archiveRoom(Long chatRoomId, Timestamp cutoff) throws IOException {
+        // Finish a deletion that was interrupted after the last segment was written
+        messageArchive.boundary(chatRoomId).ifPresent(boundary -> deleteArchived(chatRoomId, boundary));
+
+        List<MessageCursor> lastMessage = jdbcTemplate.query(LAST_MESSAGE_SQL,
+            (rs, rowNum) -> new MessageCursor(rs.getTimestamp("sent_at").toLocalDateTime(), rs.getLong("id")), chatRoomId);
+        if (lastMessage.isEmpty()) {
+            return 0;
+        }
+        Timestamp lastSentAt = Timestamp.valueOf(lastMessage.get(0).sentAt());
+        Long lastId = lastMessage.get(0).id();
+
+        int archived = 0;
+        List<ArchivedMessage> batch;
+        do {
+            batch = jdbcTemplate.query(BATCH_SQL, ROW_MAPPER, chatRoomId, cutoff, lastSentAt, lastSentAt, lastId, batchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+            MessageCursor boundary = messageArchive.append(chatRoomId, batch);
+            deleteArchived(chatRoomId, boundary);
+            archived += batch.size();
+        } while (batch.size() == batchSize);
+        return archived;
+    }
+
+    private void deleteArchived(Long chatRoomId, MessageCursor boundary) {
+        Timestamp sentAt = Timestamp.valueOf(boundary.sentAt());
+        jdbcTemplate.update(DELETE_ARCHIVED_SQL, chatRoomId, sentAt, sentAt, boundary.id());
+    }
+}
@@ -0,0 +1,405 @@
+package com.melon.app.service.chat.search;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.melon.app.service.chat.ChatMessageSentEvent;
+import com.melon.app.service.chat.archive.MessageArchive;
+import com.melon.app.service.chat.search.RoomIndex.IndexedMessage;
+import com.melon.app.service.chat.search.RoomIndex.Match;
+import com.melon.app.service.chat.search.RoomIndex.TermStats;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Full-text index over chat message content, kept per room in memory and persisted to segment
+ * files under chat.search.index-dir.
+ *
+ * Committed messages are indexed as they are sent. Every chat.search.flush-interval-ms the
+ * messages indexed since the last flush are written as a new segment for their room, and a
+ * room's segments are compacted into one once there are too many. On startup the segments are
+ * loaded and only messages sent after the last flush are read back from the database; with no
+ * segments on disk the whole history, including the {@link MessageArchive}, is indexed once.
+ *
+ * The directory belongs to one database. Delete it if the database is reset.
+ */
+@Component
+public class MessageSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(MessageSearchIndex.class);
+
+    private static final String ROOM_DIRECTORY_PREFIX = "room-";
+    private static final String MANIFEST_FILE = "manifest.properties";
+    private static final String CHECKPOINT_PROPERTY = "checkpoint.sent-at";
+    private static final int MAX_SEGMENTS_PER_ROOM = 8;
+    private static final int MAX_QUERY_TERMS = 10;
+    private static final int CATCH_UP_BATCH_SIZE = 1000;
+    // Messages can commit a little after later-sent ones, so catching up re-reads this far back
+    private static final Duration CATCH_UP_OVERLAP = Duration.ofMinutes(5);
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final String CATCH_UP_SQL =
+        "SELECT id, chat_room_id, content, sent_at FROM messages " +
+        "WHERE sent_at >= ? AND id > ? ORDER BY id LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MessageArchive messageArchive;
+    private final Path directory;
+    private final long flushIntervalMillis;
+    private final Map<Long, RoomIndex> rooms = new ConcurrentHashMap<>();
+
+    // Loading, flushing and deleting files all happen on this single thread
+    private final ScheduledExecutorService executor =
+        Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("chat-search-index").daemon().factory());
+    // Newest sentAt that is known to be in a segment; only touched on the executor thread
+    private LocalDateTime checkpoint;
+
+    public MessageSearchIndex(
+            JdbcTemplate jdbcTemplate,
+            MessageArchive messageArchive,
+            @Value("${chat.search.index-dir:${user.home}/planly-chat-index}") String directory,
+            @Value("${chat.search.flush-interval-ms:30000}") long flushIntervalMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.messageArchive = messageArchive;
+        this.directory = Paths.get(directory);
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    public record SearchHit(Long chatRoomId, Long messageId) {}
+
+    /**
+     * @param hits the requested page of hits, best match first
+     * @param totalHits number of matching messages across all searched rooms
+     */
+    public record SearchResult(List<SearchHit> hits, int totalHits) {}
+
+    private record ScoredHit(Long chatRoomId, long messageId, double score) {}
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor.execute(this::load);
+        executor.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        executor.execute(this::flushQuietly);
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @TransactionalEventListener
+    public void onMessageSent(ChatMessageSentEvent event) {
+        index(event.chatRoomId(), event.message().getId(), event.message().getSentAt(), event.message().getContent());
+    }
+
+    /**
+     * Drops a deleted room from the index, including its files.
+     */
+    public void removeRoom(Long chatRoomId) {
+        rooms.remove(chatRoomId);
+        executor.execute(() -> {
+            try {
+                deleteRecursively(roomDirectory(chatRoomId));
+            } catch (IOException e) {
+                logger.warn("Failed to delete search index files of chat room {}", chatRoomId, e);
+            }
+        });
+    }
+
+    /**
+     * Finds messages containing every term of the query, ranked with BM25 across the given rooms.
+     * Callers are responsible for passing only rooms the searching user may read.
+     */
+    public SearchResult search(Collection<Long> chatRoomIds, String query, int offset, int limit) {
+        List<String> terms = Tokenizer.queryTerms(query);
+        if (terms.size() > MAX_QUERY_TERMS) {
+            terms = terms.subList(0, MAX_QUERY_TERMS);
+        }
+        if (terms.isEmpty()) {
+            return new SearchResult(List.of(), 0);
+        }
+
+        // Corpus statistics over every searched room, so scores are comparable between rooms
+        List<Map.Entry<Long, RoomIndex>> searched = new ArrayList<>();
+        long messages = 0;
+        long totalLength = 0;
+        long[] documentFrequencies = new long[terms.size()];
+        for (Long chatRoomId : chatRoomIds) {
+            RoomIndex room = rooms.get(chatRoomId);
+            if (room == null) {
+                continue;
+            }
+            searched.add(Map.entry(chatRoomId, room));
+            TermStats stats = room.stats(terms);
+            messages += stats.messages();
+            totalLength += stats.totalLength();
+            for (int i = 0; i < terms.size(); i++) {
+                documentFrequencies[i] += stats.documentFrequencies()[i];
+            }
+        }
+        if (messages == 0) {
+            return new SearchResult(List.of(), 0);
+        }
+
+        double averageLength = Math.max(1.0, (double) totalLength / messages);
+        double[] idf = new double[terms.size()];
+        for (int i = 0; i < terms.size(); i++) {
+            idf[i] = Math.log(1 + (messages - documentFrequencies[i] + 0.5) / (documentFrequencies[i] + 0.5));
+        }
+
+        List<ScoredHit> hits = new ArrayList<>();
+        for (Map.Entry<Long, RoomIndex> entry : searched) {
+            for (Match match : entry.getValue().match(terms, idf, averageLength)) {
+                hits.add(new ScoredHit(entry.getKey(), match.messageId(), match.score()));
+            }
+        }
+        // Best match first, newer messages first on ties
+        hits.sort(Comparator.comparingDouble(ScoredHit::score).reversed()
+            .thenComparing(Comparator.comparingLong(ScoredHit::messageId).reversed()));
+
+        List<SearchHit> page = hits.stream()
+            .skip(offset)
+            .limit(limit)
+            .map(hit -> new SearchHit(hit.chatRoomId(), hit.messageId()))
+            .toList();
+        return new SearchResult(page, hits.size());
+    }
+
+    private void index(Long chatRoomId, long messageId, LocalDateTime sentAt, String content) {
+        Map<String, Integer> terms = Tokenizer.termFrequencies(content);
+        int length = terms.values().stream().mapToInt(Integer::intValue).sum();
+        rooms.computeIfAbsent(chatRoomId, id -> new RoomIndex())
+            .add(new IndexedMessage(messageId, sentAt, terms, length));
+    }
+
+    /**
+     * Loads the segments from disk, drops rooms that no longer exist and indexes whatever the
+     * segments are missing.
+     */
+    private void load() {
+        try {
+            Files.createDirectories(directory);
+            checkpoint = readCheckpoint();
+            Set<Long> existingRooms = new HashSet<>(jdbcTemplate.queryForList("SELECT id FROM chat_rooms", Long.class));
+
+            boolean complete = true;
+            try (DirectoryStream<Path> roomDirectories = Files.newDirectoryStream(directory, ROOM_DIRECTORY_PREFIX + "*")) {
+                for (Path roomDirectory : roomDirectories) {
+                    Long chatRoomId = parseRoomId(roomDirectory);
+                    if (chatRoomId == null) {
+                        continue;
+                    }
+                    if (!existingRooms.contains(chatRoomId)) {
+                        deleteRecursively(roomDirectory);
+                        continue;
+                    }
+                    RoomIndex room = rooms.computeIfAbsent(chatRoomId, id -> new RoomIndex());
+                    for (Path segment : segmentFiles(roomDirectory)) {
+                        try {
+                            room.load(SegmentFiles.read(segment));
+                        } catch (IOException e) {
+                            logger.warn("Discarding unreadable search index segment {}", segment, e);
+                            Files.deleteIfExists(segment);
+                            complete = false;
+                        }
+                    }
+                }
+            }
+
+            // A lost segment means the checkpoint can no longer be trusted
+            LocalDateTime since = complete && checkpoint != null ? checkpoint.minus(CATCH_UP_OVERLAP) : BEGINNING;
+            int indexed = since == BEGINNING ? indexArchive(existingRooms) : 0;
+            indexed += catchUp(since);
+            logger.info("Chat search index loaded: {} rooms, {} messages indexed from history", rooms.size(), indexed);
+        } catch (IOException | DataAccessException e) {
+            logger.error("Failed to load the chat search index", e);
+        }
+    }
+
+    /**
+     * Archived messages never change and are older than any checkpoint, so they only need
+     * reading when the index is rebuilt from scratch.
+     */
+    private int indexArchive(Set<Long> existingRooms) {
+        int[] indexed = { 0 };
+        messageArchive.forEachMessage((chatRoomId, message) -> {
+            RoomIndex room = rooms.get(chatRoomId);
+            if (existingRooms.contains(chatRoomId) && (room == null || !room.contains(message.id()))) {
+                index(chatRoomId, message.id(), message.sentAt(), message.content());
+                indexed[0]++;
+            }
+        });
+        return indexed[0];
+    }
+
+    private int catchUp(LocalDateTime since) {
+        Timestamp sentAfter = Timestamp.valueOf(since);
+        long[] lastId = { 0 };
+        int[] indexed = { 0 };
+        int rows;
+        do {
+            int[] batch = { 0 };
+            jdbcTemplate.query(CATCH_UP_SQL, rs -> {
+                long messageId = rs.getLong("id");
+                long chatRoomId = rs.getLong("chat_room_id");
+                RoomIndex room = rooms.get(chatRoomId);
+                if (room == null || !room.contains(messageId)) {
+                    index(chatRoomId, messageId, rs.getTimestamp("sent_at").toLocalDateTime(), rs.getString("content"));
+                    indexed[0]++;
+                }
+                lastId[0] = messageId;
+                batch[0]++;
+            }, sentAfter, lastId[0], CATCH_UP_BATCH_SIZE);
+            rows = batch[0];
+        } while (rows == CATCH_UP_BATCH_SIZE);
+        return indexed[0];
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to flush the chat search index", e);
+        }
+    }
+
+    private void flush() throws IOException {
+        LocalDateTime newest = null;
+        for (Map.Entry<Long, RoomIndex> entry : rooms.entrySet()) {
+            RoomIndex room = entry.getValue();
+            List<IndexedMessage> pending = room.pending();
+            if (pending.isEmpty()) {
+                continue;
+            }
+
+            Path roomDirectory = roomDirectory(entry.getKey());
+            Files.createDirectories(roomDirectory);
+            List<Path> segments = segmentFiles(roomDirectory);
+            Path segment = roomDirectory.resolve(String.format("seg-%08d%s", nextSegmentNumber(segments), SegmentFiles.SEGMENT_SUFFIX));
+
+            if (segments.size() >= MAX_SEGMENTS_PER_ROOM) {
+                // The in-memory index already holds the union of every segment, so write it out whole
+                SegmentFiles.write(segment, room.snapshot());
+                for (Path old : segments) {
+                    Files.deleteIfExists(old);
+                }
+            } else {
+                SegmentFiles.write(segment, RoomIndex.segmentOf(pending));
+            }
+            room.flushed(pending.size());
+
+            for (IndexedMessage message : pending) {
+                if (newest == null || message.sentAt().isAfter(newest)) {
+                    newest = message.sentAt();
+                }
+            }
+        }
+
+        if (newest != null && (checkpoint == null || newest.isAfter(checkpoint))) {
+            checkpoint = newest;
+            writeCheckpoint();
+        }
+    }
+
+    private Path roomDirectory(Long chatRoomId) {
+        return directory.resolve(ROOM_DIRECTORY_PREFIX + chatRoomId);
+    }
+
+    private Long parseRoomId(Path roomDirectory) {
+        try {
+            return Long.parseLong(roomDirectory.getFileName().toString().substring(ROOM_DIRECTORY_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private List<Path> segmentFiles(Path roomDirectory) throws IOException {
+        if (!Files.isDirectory(roomDirectory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(roomDirectory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(SegmentFiles.SEGMENT_SUFFIX))
+                .sorted()
+                .toList();
+        }
+    }
+
+    private long nextSegmentNumber(List<Path> segments) {
+        if (segments.isEmpty()) {
+            return 0;
+        }
+        String name = segments.get(segments.size() - 1).getFileName().toString();
+        try {
+            return Long.parseLong(name.substring("seg-".length(), name.length() - SegmentFiles.SEGMENT_SUFFIX.length())) + 1;
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return segments.size();
+        }
+    }
+
+    private LocalDateTime readCheckpoint() throws IOException {
+        Path manifest = directory.resolve(MANIFEST_FILE);
+        if (!Files.exists(manifest)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(manifest)) {
+            properties.load(in);
+        }
+        String value = properties.getProperty(CHECKPOINT_PROPERTY);
+        return value != null ? LocalDateTime.parse(value) : null;
+    }
+
+    private void writeCheckpoint() throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty(CHECKPOINT_PROPERTY, checkpoint.toString());
+        Path manifest = directory.resolve(MANIFEST_FILE);
+        Path temp = directory.resolve(MANIFEST_FILE + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            properties.store(out, "Chat search index");
+        }
+        Files.move(temp, manifest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.melon.app.service.chat.search;
+
+import java.util.Arrays;
+
+/**
+ * The messages containing one term, sorted by message id, with the term's frequency in each.
+ * Not thread-safe; guarded by the owning {@link RoomIndex}.
+ */
+final class Postings {
+    private long[] messageIds;
+    private int[] frequencies;
+    private int size;
+
+    Postings() {
+        this(4);
+    }
+
+    Postings(int capacity) {
+        messageIds = new long[Math.max(capacity, 1)];
+        frequencies = new int[Math.max(capacity, 1)];
+    }
+
+    int size() {
+        return size;
+    }
+
+    long messageId(int index) {
+        return messageIds[index];
+    }
+
+    int frequency(int index) {
+        return frequencies[index];
+    }
+
+    /**
+     * Adds a message, keeping ids sorted. Messages are almost always indexed in id order, so the
+     * insertion point is searched for from the end.
+     */
+    void add(long messageId, int frequency) {
+        if (size == messageIds.length) {
+            messageIds = Arrays.copyOf(messageIds, size * 2);
+            frequencies = Arrays.copyOf(frequencies, size * 2);
+        }
+        int position = size;
+        while (position > 0 && messageIds[position - 1] > messageId) {
+            position--;
+        }
+        System.arraycopy(messageIds, position, messageIds, position + 1, size - position);
+        System.arraycopy(frequencies, position, frequencies, position + 1, size - position);
+        messageIds[position] = messageId;
+        frequencies[position] = frequency;
+        size++;
+    }
+
+    /**
+     * @return the index of the message at or after {@code from}, or a negative value if absent
+     */
+    int find(long messageId, int from) {
+        return Arrays.binarySearch(messageIds, from, size, messageId);
+    }
+
+    Postings copy() {
+        Postings copy = new Postings(size);
+        System.arraycopy(messageIds, 0, copy.messageIds, 0, size);
+        System.arraycopy(frequencies, 0, copy.frequencies, 0, size);
+        copy.size = size;
+        return copy;
+    }
+}
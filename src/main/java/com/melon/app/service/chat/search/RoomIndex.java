@@ -0,0 +1,164 @@
+package com.melon.app.service.chat.search;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * In-memory inverted index of one chat room. Messages added since the last flush are also kept
+ * as {@link #pending()} so they can be written out as a new segment.
+ */
+final class RoomIndex {
+    // BM25 parameters
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    /**
+     * A message as it enters the index.
+     * @param length total number of terms in the message
+     */
+    record IndexedMessage(long messageId, LocalDateTime sentAt, Map<String, Integer> terms, int length) {}
+
+    /**
+     * An immutable batch of indexed messages in the shape they are stored on disk.
+     * @param lengths message id to number of terms
+     */
+    record Segment(Map<Long, Integer> lengths, SortedMap<String, Postings> terms) {}
+
+    /**
+     * Statistics for ranking a query across several rooms.
+     * @param documentFrequencies for each query term, the number of messages containing it
+     */
+    record TermStats(int messages, long totalLength, int[] documentFrequencies) {}
+
+    record Match(long messageId, double score) {}
+
+    private final Map<String, Postings> terms = new HashMap<>();
+    private final Map<Long, Integer> lengths = new HashMap<>();
+    private final List<IndexedMessage> pending = new ArrayList<>();
+    private long totalLength;
+
+    /**
+     * Indexes a message unless it is already present.
+     */
+    synchronized void add(IndexedMessage message) {
+        if (lengths.putIfAbsent(message.messageId(), message.length()) != null) {
+            return;
+        }
+        totalLength += message.length();
+        message.terms().forEach((term, frequency) ->
+            terms.computeIfAbsent(term, t -> new Postings()).add(message.messageId(), frequency));
+        pending.add(message);
+    }
+
+    synchronized boolean contains(long messageId) {
+        return lengths.containsKey(messageId);
+    }
+
+    /**
+     * Merges a segment read from disk, skipping messages that are already indexed.
+     */
+    synchronized void load(Segment segment) {
+        Set<Long> added = new HashSet<>();
+        segment.lengths().forEach((messageId, length) -> {
+            if (lengths.putIfAbsent(messageId, length) == null) {
+                added.add(messageId);
+                totalLength += length;
+            }
+        });
+        segment.terms().forEach((term, postings) -> {
+            for (int i = 0; i < postings.size(); i++) {
+                if (added.contains(postings.messageId(i))) {
+                    terms.computeIfAbsent(term, t -> new Postings()).add(postings.messageId(i), postings.frequency(i));
+                }
+            }
+        });
+    }
+
+    synchronized List<IndexedMessage> pending() {
+        return List.copyOf(pending);
+    }
+
+    /**
+     * Forgets the first {@code count} pending messages once they have been written to a segment.
+     */
+    synchronized void flushed(int count) {
+        pending.subList(0, count).clear();
+    }
+
+    /**
+     * @return every message in the index as a single segment, used to compact a room's segments
+     */
+    synchronized Segment snapshot() {
+        SortedMap<String, Postings> copy = new TreeMap<>();
+        terms.forEach((term, postings) -> copy.put(term, postings.copy()));
+        return new Segment(new HashMap<>(lengths), copy);
+    }
+
+    static Segment segmentOf(List<IndexedMessage> messages) {
+        Map<Long, Integer> lengths = new HashMap<>();
+        SortedMap<String, Postings> terms = new TreeMap<>();
+        for (IndexedMessage message : messages) {
+            lengths.put(message.messageId(), message.length());
+            message.terms().forEach((term, frequency) ->
+                terms.computeIfAbsent(term, t -> new Postings()).add(message.messageId(), frequency));
+        }
+        return new Segment(lengths, terms);
+    }
+
+    synchronized TermStats stats(List<String> queryTerms) {
+        int[] documentFrequencies = new int[queryTerms.size()];
+        for (int i = 0; i < queryTerms.size(); i++) {
+            Postings postings = terms.get(queryTerms.get(i));
+            documentFrequencies[i] = postings != null ? postings.size() : 0;
+        }
+        return new TermStats(lengths.size(), totalLength, documentFrequencies);
+    }
+
+    /**
+     * Finds the messages containing every query term and scores them with BM25.
+     * @param idf inverse document frequency of each query term across all searched rooms
+     */
+    synchronized List<Match> match(List<String> queryTerms, double[] idf, double averageLength) {
+        List<Postings> lists = new ArrayList<>(queryTerms.size());
+        for (String term : queryTerms) {
+            Postings postings = terms.get(term);
+            if (postings == null) {
+                return List.of();
+            }
+            lists.add(postings);
+        }
+
+        // Walk the rarest term and look the others up, advancing through each sorted list
+        Postings rarest = lists.stream().min(Comparator.comparingInt(Postings::size)).orElseThrow();
+        int[] cursors = new int[lists.size()];
+
+        List<Match> matches = new ArrayList<>();
+        candidates:
+        for (int c = 0; c < rarest.size(); c++) {
+            long messageId = rarest.messageId(c);
+            double lengthNorm = K1 * (1 - B + B * lengths.get(messageId) / averageLength);
+            double score = 0;
+            for (int t = 0; t < lists.size(); t++) {
+                Postings postings = lists.get(t);
+                int index = postings == rarest ? c : postings.find(messageId, cursors[t]);
+                if (index < 0) {
+                    cursors[t] = -index - 1;
+                    continue candidates;
+                }
+                cursors[t] = index;
+                int frequency = postings.frequency(index);
+                score += idf[t] * frequency * (K1 + 1) / (frequency + lengthNorm);
+            }
+            matches.add(new Match(messageId, score));
+        }
+        return matches;
+    }
+}
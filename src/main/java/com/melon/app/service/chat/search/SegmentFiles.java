@@ -0,0 +1,88 @@
+package com.melon.app.service.chat.search;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import com.melon.app.service.chat.search.RoomIndex.Segment;
+
+/**
+ * Reads and writes index segments. A segment file holds the message lengths followed by the
+ * term dictionary in sorted order, each term with its postings (delta-encoded message ids and
+ * frequencies). Files are written to a temporary name and moved into place, so a crash never
+ * leaves a partial segment behind.
+ */
+final class SegmentFiles {
+    static final String SEGMENT_SUFFIX = ".seg";
+
+    private static final int MAGIC = 0x4D534958; // "MSIX"
+    private static final int VERSION = 1;
+
+    private SegmentFiles() {}
+
+    static void write(Path file, Segment segment) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            out.writeInt(segment.lengths().size());
+            for (Map.Entry<Long, Integer> entry : segment.lengths().entrySet()) {
+                out.writeLong(entry.getKey());
+                out.writeInt(entry.getValue());
+            }
+
+            out.writeInt(segment.terms().size());
+            for (Map.Entry<String, Postings> entry : segment.terms().entrySet()) {
+                Postings postings = entry.getValue();
+                out.writeUTF(entry.getKey());
+                out.writeInt(postings.size());
+                long previous = 0;
+                for (int i = 0; i < postings.size(); i++) {
+                    out.writeLong(postings.messageId(i) - previous);
+                    out.writeInt(postings.frequency(i));
+                    previous = postings.messageId(i);
+                }
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static Segment read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a search index segment: " + file);
+            }
+
+            int messageCount = in.readInt();
+            Map<Long, Integer> lengths = new HashMap<>(messageCount * 2);
+            for (int i = 0; i < messageCount; i++) {
+                lengths.put(in.readLong(), in.readInt());
+            }
+
+            int termCount = in.readInt();
+            SortedMap<String, Postings> terms = new TreeMap<>();
+            for (int t = 0; t < termCount; t++) {
+                String term = in.readUTF();
+                int size = in.readInt();
+                Postings postings = new Postings(size);
+                long messageId = 0;
+                for (int i = 0; i < size; i++) {
+                    messageId += in.readLong();
+                    postings.add(messageId, in.readInt());
+                }
+                terms.put(term, postings);
+            }
+            return new Segment(lengths, terms);
+        }
+    }
+}
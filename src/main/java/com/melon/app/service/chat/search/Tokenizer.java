@@ -0,0 +1,70 @@
+package com.melon.app.service.chat.search;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Splits message text into lower-cased terms made of letters and digits. Message content is
+ * stored HTML-encoded, so entities such as {@code &#39;} are treated as separators rather
+ * than indexed.
+ */
+final class Tokenizer {
+    static final int MIN_TERM_LENGTH = 2;
+    static final int MAX_TERM_LENGTH = 40;
+
+    private static final Pattern HTML_ENTITY = Pattern.compile("&(#[0-9]+|#x[0-9a-fA-F]+|[a-zA-Z]+);");
+
+    private Tokenizer() {}
+
+    /**
+     * @return each distinct term of the text mapped to how often it occurs, in order of first occurrence
+     */
+    static Map<String, Integer> termFrequencies(String text) {
+        Map<String, Integer> frequencies = new LinkedHashMap<>();
+        for (String term : tokenize(text)) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+        return frequencies;
+    }
+
+    /**
+     * @return the distinct terms of a search query
+     */
+    static List<String> queryTerms(String query) {
+        return new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+    }
+
+    private static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return terms;
+        }
+
+        String plain = HTML_ENTITY.matcher(text).replaceAll(" ").toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= plain.length(); ) {
+            int codePoint = i < plain.length() ? plain.codePointAt(i) : ' ';
+            if (Character.isLetterOrDigit(codePoint)) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                addTerm(terms, plain.substring(start, i));
+                start = -1;
+            }
+            i += i < plain.length() ? Character.charCount(codePoint) : 1;
+        }
+        return terms;
+    }
+
+    private static void addTerm(List<String> terms, String term) {
+        if (term.length() >= MIN_TERM_LENGTH && term.length() <= MAX_TERM_LENGTH) {
+            terms.add(term);
+        }
+    }
+}
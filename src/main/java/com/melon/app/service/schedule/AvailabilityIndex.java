@@ -0,0 +1,93 @@
+package com.melon.app.service.schedule;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+import com.melon.app.repository.ScheduleRepository;
+import com.melon.app.repository.ScheduleRepository.EntryTimes;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Each user's weekly busy time as a {@link WeekSlots} bitset: a slot is set if any entry on any
+ * of the user's schedules overlaps it. Bitsets are built from the entry times on first use and
+ * kept until the user's schedules change.
+ */
+@Component
+public class AvailabilityIndex {
+    // Bound on the IN list of one load
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    private final ScheduleRepository scheduleRepository;
+
+    private final Map<Long, long[]> busyByUser = new ConcurrentHashMap<>();
+    // Bumped by every invalidation; a load that overlaps one does not keep what it read
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public AvailabilityIndex(ScheduleRepository scheduleRepository, MeterRegistry meterRegistry) {
+        this.scheduleRepository = scheduleRepository;
+        Gauge.builder("schedule.availability.users", busyByUser, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * @return the busy bitset of each of the users; callers must not modify them
+     */
+    public Map<Long, long[]> busy(Collection<Long> userIds) {
+        Map<Long, long[]> busy = new HashMap<>(userIds.size() * 2);
+        List<Long> missing = new ArrayList<>();
+        for (Long userId : userIds) {
+            long[] bits = busyByUser.get(userId);
+            if (bits != null) {
+                busy.put(userId, bits);
+            } else {
+                missing.add(userId);
+            }
+        }
+        for (int from = 0; from < missing.size(); from += LOAD_BATCH_SIZE) {
+            busy.putAll(load(missing.subList(from, Math.min(from + LOAD_BATCH_SIZE, missing.size()))));
+        }
+        return busy;
+    }
+
+    /**
+     * Must be called after any change to the user's schedules has committed.
+     */
+    public void invalidate(Long userId) {
+        invalidations.incrementAndGet();
+        busyByUser.remove(userId);
+    }
+
+    /**
+     * Invalidates the user and reads their bitset straight from the database, so the result
+     * reflects every change committed before the call.
+     */
+    public long[] reload(Long userId) {
+        invalidate(userId);
+        return load(List.of(userId)).get(userId);
+    }
+
+    private Map<Long, long[]> load(List<Long> userIds) {
+        long stamp = invalidations.get();
+        Map<Long, long[]> loaded = new HashMap<>(userIds.size() * 2);
+        userIds.forEach(userId -> loaded.put(userId, WeekSlots.empty()));
+        for (EntryTimes entry : scheduleRepository.findEntryTimesByUserIdIn(userIds)) {
+            if (entry.getStartMinute() != null && entry.getEndMinute() != null) {
+                WeekSlots.addInterval(loaded.get(entry.getUserId()), entry.getStartMinute(), entry.getEndMinute());
+            }
+        }
+        busyByUser.putAll(loaded);
+        // An invalidation during the load may have been for one of these users
+        if (invalidations.get() != stamp) {
+            loaded.keySet().forEach(busyByUser::remove);
+        }
+        return loaded;
+    }
+}
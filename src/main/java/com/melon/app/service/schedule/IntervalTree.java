@@ -0,0 +1,140 @@
+package com.melon.app.service.schedule;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An immutable index of half-open integer intervals {@code [start, end)} that finds every
+ * interval overlapping a query range in O(log n + k) for k results.
+ *
+ * An interval overlaps {@code [from, to)} exactly when either it contains {@code from}, or it
+ * starts after {@code from} and before {@code to}. The first half is a stabbing query on a
+ * centered interval tree: each node keeps the intervals containing its center sorted both by
+ * start and by end, so a stab reports from one of the two lists until the first miss and
+ * descends into one child. The second half is a binary search over all intervals sorted by
+ * start. The two halves never report the same interval. Empty intervals are dropped.
+ */
+public final class IntervalTree<T> {
+    public record Interval<T>(int start, int end, T value) {}
+
+    private static final Comparator<Interval<?>> BY_START = Comparator.comparingInt(Interval::start);
+    private static final Comparator<Interval<?>> BY_END_DESCENDING =
+        Comparator.<Interval<?>>comparingInt(Interval::end).reversed();
+
+    private final List<Interval<T>> byStart;
+    private final int[] starts;
+    private final Node<T> root;
+
+    private static final class Node<T> {
+        private final int center;
+        // The intervals containing center, in ascending start and in descending end order
+        private final List<Interval<T>> byStart;
+        private final List<Interval<T>> byEnd;
+        private Node<T> left;
+        private Node<T> right;
+
+        Node(int center, List<Interval<T>> byStart) {
+            this.center = center;
+            this.byStart = byStart;
+            this.byEnd = new ArrayList<>(byStart);
+            this.byEnd.sort(BY_END_DESCENDING);
+        }
+    }
+
+    public IntervalTree(Collection<Interval<T>> intervals) {
+        byStart = new ArrayList<>(intervals.size());
+        for (Interval<T> interval : intervals) {
+            if (interval.end() > interval.start()) {
+                byStart.add(interval);
+            }
+        }
+        byStart.sort(BY_START);
+        starts = byStart.stream().mapToInt(Interval::start).toArray();
+        root = build(byStart);
+    }
+
+    // Centered on the middle start, so each child gets at most half of the intervals
+    private static <T> Node<T> build(List<Interval<T>> sortedByStart) {
+        if (sortedByStart.isEmpty()) {
+            return null;
+        }
+        int center = sortedByStart.get(sortedByStart.size() / 2).start();
+        List<Interval<T>> left = new ArrayList<>();
+        List<Interval<T>> containing = new ArrayList<>();
+        List<Interval<T>> right = new ArrayList<>();
+        for (Interval<T> interval : sortedByStart) {
+            if (interval.end() <= center) {
+                left.add(interval);
+            } else if (interval.start() > center) {
+                right.add(interval);
+            } else {
+                containing.add(interval);
+            }
+        }
+        Node<T> node = new Node<>(center, containing);
+        node.left = build(left);
+        node.right = build(right);
+        return node;
+    }
+
+    public int size() {
+        return byStart.size();
+    }
+
+    /**
+     * @return the values of every interval overlapping {@code [from, to)}, none if the range
+     *         is empty
+     */
+    public List<T> overlapping(int from, int to) {
+        List<T> values = new ArrayList<>();
+        if (to <= from) {
+            return values;
+        }
+        stab(from, values);
+        for (int i = firstStartAfter(from); i < starts.length && starts[i] < to; i++) {
+            values.add(byStart.get(i).value());
+        }
+        return values;
+    }
+
+    private void stab(int point, List<T> values) {
+        Node<T> node = root;
+        while (node != null) {
+            if (point < node.center) {
+                // Every interval here ends after center, so it contains point if it starts by it
+                for (Interval<T> interval : node.byStart) {
+                    if (interval.start() > point) {
+                        break;
+                    }
+                    values.add(interval.value());
+                }
+                node = node.left;
+            } else {
+                // Every interval here starts by center, so it contains point if it ends after it
+                for (Interval<T> interval : node.byEnd) {
+                    if (interval.end() <= point) {
+                        break;
+                    }
+                    values.add(interval.value());
+                }
+                node = node.right;
+            }
+        }
+    }
+
+    private int firstStartAfter(int point) {
+        int low = 0;
+        int high = starts.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] <= point) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,201 @@
+package com.melon.app.service.schedule;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.melon.app.entity.OrganizationMembershipId;
+import com.melon.app.repository.OrganizationMembershipRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Each organization's busy count per {@link WeekSlots} slot, kept up to date instead of being
+ * recounted from every member on each request.
+ *
+ * An organization's counts are built from its members' bitsets on first use. From then on a
+ * schedule change subtracts the bitset the user last contributed and adds their new one, and
+ * joins and removals add or subtract a single member. Each aggregate remembers what each
+ * member contributed, so a change applied twice leaves the counts correct.
+ *
+ * Nothing slow runs under a shared lock. A build reads the members outside any lock and is
+ * only installed if no change touched the organization meanwhile; otherwise the next request
+ * builds again. A user's changes are ordered by a lock per user (striped), and each aggregate
+ * is locked only to apply the new bitset, so other users and organizations never wait on a
+ * query.
+ */
+@Component
+public class OrganizationAvailability {
+    private static final int USER_LOCK_STRIPES = 64;
+
+    private final AvailabilityIndex availabilityIndex;
+    private final OrganizationMembershipRepository organizationMembershipRepository;
+
+    private final Map<Long, Aggregate> aggregates = new ConcurrentHashMap<>();
+    private final Object[] userLocks = new Object[USER_LOCK_STRIPES];
+
+    public OrganizationAvailability(AvailabilityIndex availabilityIndex,
+                                    OrganizationMembershipRepository organizationMembershipRepository,
+                                    MeterRegistry meterRegistry) {
+        this.availabilityIndex = availabilityIndex;
+        this.organizationMembershipRepository = organizationMembershipRepository;
+        for (int i = 0; i < USER_LOCK_STRIPES; i++) {
+            userLocks[i] = new Object();
+        }
+        Gauge.builder("schedule.availability.organizations", aggregates, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * @param busyCounts how many members are busy in each slot
+     */
+    public record Snapshot(int memberCount, int[] busyCounts) {}
+
+    // Guarded by itself
+    private static final class Aggregate {
+        private boolean loaded;
+        // Bumped by every change that arrives before the counts are loaded
+        private long generation;
+        // The bitset each member's counts were last taken from
+        private Map<Long, long[]> members;
+        private int[] counts;
+
+        synchronized long generation() {
+            return generation;
+        }
+
+        /**
+         * Installs a build unless a change arrived since {@code observed} was read.
+         */
+        synchronized boolean load(long observed, Map<Long, long[]> busyByMember) {
+            if (loaded || generation != observed) {
+                return loaded;
+            }
+            members = new HashMap<>(busyByMember);
+            counts = WeekSlots.count(busyByMember.values());
+            loaded = true;
+            return true;
+        }
+
+        /**
+         * @return the current counts, or null if they have not been loaded
+         */
+        synchronized Snapshot snapshot() {
+            return loaded ? new Snapshot(members.size(), counts.clone()) : null;
+        }
+
+        /**
+         * @param busy the member's new bitset, or null if they are no longer a member
+         * @param join whether a user who is not counted yet is added
+         */
+        synchronized void update(Long userId, long[] busy, boolean join) {
+            if (!loaded) {
+                generation++;
+                return;
+            }
+            if (busy == null) {
+                long[] old = members.remove(userId);
+                if (old != null) {
+                    WeekSlots.addTo(counts, old, -1);
+                }
+                return;
+            }
+            if (!join && !members.containsKey(userId)) {
+                return;
+            }
+            long[] old = members.put(userId, busy);
+            if (old != null) {
+                WeekSlots.addTo(counts, old, -1);
+            }
+            WeekSlots.addTo(counts, busy, 1);
+        }
+    }
+
+    public Snapshot get(Long organizationId) {
+        Aggregate aggregate = aggregates.computeIfAbsent(organizationId, id -> new Aggregate());
+        // Read before the members, so any change made while they load is noticed
+        long observed = aggregate.generation();
+        Snapshot snapshot = aggregate.snapshot();
+        if (snapshot != null) {
+            return snapshot;
+        }
+
+        List<Long> memberIds = organizationMembershipRepository.findUserIdsByOrganizationId(organizationId);
+        Map<Long, long[]> busy = availabilityIndex.busy(memberIds);
+        if (aggregate.load(observed, busy)) {
+            return aggregate.snapshot();
+        }
+        // Changed while loading: answer from what was read and build again next time
+        return new Snapshot(busy.size(), WeekSlots.count(busy.values()));
+    }
+
+    /**
+     * Must be called after any change to the user's schedules has committed. Invalidates the
+     * user's bitset and moves every organization of theirs that counts them onto the new one.
+     */
+    public void scheduleChanged(Long userId) {
+        availabilityIndex.invalidate(userId);
+        List<Aggregate> affected = organizationMembershipRepository.findOrganizationIdsByUserId(userId).stream()
+            .map(aggregates::get)
+            .filter(Objects::nonNull)
+            .toList();
+        if (affected.isEmpty()) {
+            return;
+        }
+        synchronized (userLock(userId)) {
+            // Read under the user's lock, so of two racing changes the later one is applied last
+            long[] busy = availabilityIndex.reload(userId);
+            affected.forEach(aggregate -> aggregate.update(userId, busy, false));
+        }
+    }
+
+    /**
+     * Adds the user to the organization's counts once the current transaction commits.
+     */
+    public void memberAdded(Long organizationId, Long userId) {
+        afterCommit(() -> membershipChanged(organizationId, userId));
+    }
+
+    /**
+     * Removes the user from the organization's counts once the current transaction commits.
+     */
+    public void memberRemoved(Long organizationId, Long userId) {
+        afterCommit(() -> membershipChanged(organizationId, userId));
+    }
+
+    // Joins and removals are applied from the stored membership rather than from which callback
+    // runs last, so a join processed after a later removal does not count the user again
+    private void membershipChanged(Long organizationId, Long userId) {
+        Aggregate aggregate = aggregates.get(organizationId);
+        if (aggregate == null) {
+            return;
+        }
+        synchronized (userLock(userId)) {
+            boolean member = organizationMembershipRepository.existsById(new OrganizationMembershipId(userId, organizationId));
+            aggregate.update(userId, member ? availabilityIndex.reload(userId) : null, true);
+        }
+    }
+
+    private Object userLock(Long userId) {
+        return userLocks[Math.floorMod(userId.hashCode(), USER_LOCK_STRIPES)];
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.melon.app.service.schedule;
+
+import com.melon.app.entity.ScheduleEntry;
+
+import java.util.Collection;
+
+/**
+ * A week as {@value #SLOTS} fifteen-minute slots, Monday 00:00 first, and weekly bitsets over
+ * those slots packed into {@value #WORDS} longs. Slot {@code s} is bit {@code s % 64} of word
+ * {@code s / 64}.
+ */
+public final class WeekSlots {
+    public static final int SLOT_MINUTES = 15;
+    public static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+    public static final int SLOTS = 7 * SLOTS_PER_DAY;
+    public static final int WORDS = (SLOTS + Long.SIZE - 1) / Long.SIZE;
+    public static final int MINUTES_PER_WEEK = 7 * ScheduleEntry.MINUTES_PER_DAY;
+
+    private WeekSlots() {}
+
+    public static long[] empty() {
+        return new long[WORDS];
+    }
+
+    /**
+     * Marks every slot that overlaps [startMinute, endMinute) of the week.
+     */
+    public static void addInterval(long[] bits, int startMinute, int endMinute) {
+        if (startMinute < 0 || endMinute <= startMinute) {
+            return;
+        }
+        setRange(bits, startMinute / SLOT_MINUTES, Math.min((endMinute + SLOT_MINUTES - 1) / SLOT_MINUTES, SLOTS));
+    }
+
+    /**
+     * Sets slots [fromSlot, toSlot) a word at a time.
+     */
+    public static void setRange(long[] bits, int fromSlot, int toSlot) {
+        if (fromSlot >= toSlot) {
+            return;
+        }
+        int firstWord = fromSlot / Long.SIZE;
+        int lastWord = (toSlot - 1) / Long.SIZE;
+        long firstMask = -1L << fromSlot;
+        long lastMask = -1L >>> (Long.SIZE - toSlot % Long.SIZE) % Long.SIZE;
+        if (firstWord == lastWord) {
+            bits[firstWord] |= firstMask & lastMask;
+            return;
+        }
+        bits[firstWord] |= firstMask;
+        for (int word = firstWord + 1; word < lastWord; word++) {
+            bits[word] = -1L;
+        }
+        bits[lastWord] |= lastMask;
+    }
+
+    public static boolean get(long[] bits, int slot) {
+        return (bits[slot / Long.SIZE] & (1L << slot)) != 0;
+    }
+
+    /**
+     * @return the first set slot at or after {@code from}, or {@value #SLOTS} if there is none
+     */
+    public static int nextSetSlot(long[] bits, int from) {
+        return nextSlot(bits, from, 0L);
+    }
+
+    /**
+     * @return the first clear slot at or after {@code from}, or {@value #SLOTS} if there is none
+     */
+    public static int nextClearSlot(long[] bits, int from) {
+        return nextSlot(bits, from, -1L);
+    }
+
+    // Skips whole words that are all clear (flip 0) or all set (flip -1)
+    private static int nextSlot(long[] bits, int from, long flip) {
+        if (from >= SLOTS) {
+            return SLOTS;
+        }
+        int word = from / Long.SIZE;
+        long candidates = (bits[word] ^ flip) & (-1L << from);
+        while (candidates == 0) {
+            if (++word == WORDS) {
+                return SLOTS;
+            }
+            candidates = bits[word] ^ flip;
+        }
+        return Math.min(word * Long.SIZE + Long.numberOfTrailingZeros(candidates), SLOTS);
+    }
+
+    /**
+     * Adds {@code delta} to the count of every slot set in the bitset.
+     */
+    public static void addTo(int[] counts, long[] bits, int delta) {
+        for (int word = 0; word < WORDS; word++) {
+            for (long set = bits[word]; set != 0; set &= set - 1) {
+                counts[word * Long.SIZE + Long.numberOfTrailingZeros(set)] += delta;
+            }
+        }
+    }
+
+    /**
+     * Counts, for every slot, how many of the bitsets have it set.
+     *
+     * The bitsets are summed into a bit-sliced counter: plane p holds bit p of all 64 counts of a
+     * word, so adding one bitset is a few word-wide XOR/AND carries instead of 64 increments.
+     * The counts are read out of the planes once at the end.
+     */
+    public static int[] count(Collection<long[]> bitsets) {
+        int planes = Math.max(1, Integer.SIZE - Integer.numberOfLeadingZeros(bitsets.size()));
+        long[][] counter = new long[planes][WORDS];
+        for (long[] bits : bitsets) {
+            for (int word = 0; word < WORDS; word++) {
+                // No count exceeds bitsets.size(), so the carry never runs past the last plane
+                long carry = bits[word];
+                for (int plane = 0; carry != 0; plane++) {
+                    long sum = counter[plane][word] ^ carry;
+                    carry &= counter[plane][word];
+                    counter[plane][word] = sum;
+                }
+            }
+        }
+
+        int[] counts = new int[SLOTS];
+        for (int plane = 0; plane < planes; plane++) {
+            for (int word = 0; word < WORDS; word++) {
+                for (long bits = counter[plane][word]; bits != 0; bits &= bits - 1) {
+                    counts[word * Long.SIZE + Long.numberOfTrailingZeros(bits)] += 1 << plane;
+                }
+            }
+        }
+        return counts;
+    }
+}
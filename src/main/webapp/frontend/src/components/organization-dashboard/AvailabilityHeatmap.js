@@ -1,48 +1,34 @@
 import React, { useState, useEffect } from 'react';
-import { fetchOrganizationMemberScheduleEntries } from '../../util/EndpointManager';
+import { fetchOrganizationAvailability } from '../../util/EndpointManager';
 
 export default function AvailabilityHeatmap({ orgId }) {
-  const [scheduleData, setScheduleData] = useState([]);
+  const [availability, setAvailability] = useState(null);
   const days = ['Sunday', 'Monday', 'Tuesday', 'Wednesday', 'Thursday', 'Friday', 'Saturday'];
   const hours = Array.from({ length: 14 }, (_, i) => i + 8); // 8 AM to 9 PM
 
   useEffect(() => {
-    fetchOrganizationMemberScheduleEntries(orgId, setScheduleData);
+    fetchOrganizationAvailability(orgId).then(result => {
+      if (!result.error) {
+        setAvailability(result.content);
+      }
+    });
   }, [orgId]);
 
+  // Busiest slot of the hour; the server's week starts on Monday
   const getOverlapCount = (day, hour) => {
-    if (!scheduleData || !Array.isArray(scheduleData)) {
+    if (!availability) {
       return 0;
     }
-  
-    return scheduleData.reduce((count, schedule) => {
-      if (!schedule.entries || !Array.isArray(schedule.entries)) {
-        return count;
-      }
-  
-      const hasOverlap = schedule.entries.some(entry => {
-        if (!entry || !entry.eventStartTime || !entry.eventEndTime || !entry.eventDay) {
-          return false;
-        }
-  
-        const startHour = parseInt(entry.eventStartTime.split(':')[0]);
-        const endHour = parseInt(entry.eventEndTime.split(':')[0]);
-  
-        if (isNaN(startHour) || isNaN(endHour)) {
-          return false;
-        }
-  
-        return entry.eventDay === day &&
-               hour >= startHour &&
-               hour < endHour;
-      });
-  
-      return count + (hasOverlap ? 1 : 0);
-    }, 0);
+
+    const { slotMinutes, busyCounts } = availability;
+    const slotsPerHour = 60 / slotMinutes;
+    const dayIndex = (days.indexOf(day) + 6) % 7;
+    const first = (dayIndex * 24 + hour) * slotsPerHour;
+    return Math.max(...busyCounts.slice(first, first + slotsPerHour));
   };
 
   const getOpacity = (count) => {
-    const maxMembers = Math.max(scheduleData.length, 1);
+    const maxMembers = Math.max(availability ? availability.memberCount : 0, 1);
     return Math.min((count / maxMembers) * 0.9 + 0.1, 1);
   };
 
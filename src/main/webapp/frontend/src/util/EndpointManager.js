@@ -448,6 +448,101 @@ export async function fetchOrganizationMemberScheduleEntries(orgId, setScheduleD
   }
 }
 
+/**
+ * Fetches how many members of an organization are busy in each slot of the week
+ * @param {number} orgId - Organization ID
+ * @returns {Promise<{error?: string, content?: {slotMinutes: number, memberCount: number, busyCounts: Array<number>}}>}
+ *          busyCounts starts at Monday 00:00
+ */
+export const fetchOrganizationAvailability = async (orgId) => {
+  try {
+    const response = await CallServer(`/api/schedules/availability/organization/${orgId}`, 'GET');
+    const data = await response.json();
+
+    if (!response.ok) {
+      return { error: data.error || 'Failed to fetch availability' };
+    }
+
+    return { content: data.content };
+  } catch (error) {
+    console.error('Error fetching availability:', error);
+    return { error: 'Failed to fetch availability' };
+  }
+};
+
+/**
+ * Finds the windows of the week in which all of the given members are free
+ * @param {number} orgId - Organization ID
+ * @param {Object} search
+ * @param {Array<number>} search.userIds - Members to plan for
+ * @param {number} search.minDurationMinutes - Shortest window to return
+ * @param {Array<string>} [search.days] - e.g. ['MONDAY', 'WEDNESDAY']; every day if omitted
+ * @param {string} [search.startTime] - Earliest time of day, HH:mm
+ * @param {string} [search.endTime] - Latest time of day, HH:mm
+ * @returns {Promise<{error?: string, content?: Array<{startDay: string, startTime: string, endDay: string, endTime: string, durationMinutes: number}>}>}
+ */
+export const findFreeWindows = async (orgId, search) => {
+  try {
+    const response = await CallServer(`/api/schedules/availability/organization/${orgId}/free-windows`, 'POST', search);
+    const data = await response.json();
+
+    if (!response.ok) {
+      return { error: data.error || 'Failed to find free windows' };
+    }
+
+    return { content: data.content };
+  } catch (error) {
+    console.error('Error finding free windows:', error);
+    return { error: 'Failed to find free windows' };
+  }
+};
+
+/**
+ * Fetches the organization's upcoming events that overlap the current user's schedule entries
+ * @param {number} orgId - Organization ID
+ * @returns {Promise<{error?: string, content?: Array<{event: Object, entries: Array<Object>}>}>}
+ */
+export const fetchEventConflicts = async (orgId) => {
+  try {
+    const response = await CallServer(`/api/schedules/conflicts/organization/${orgId}/events`, 'GET');
+    const data = await response.json();
+
+    if (!response.ok) {
+      return { error: data.error || 'Failed to fetch event conflicts' };
+    }
+
+    return { content: data.content };
+  } catch (error) {
+    console.error('Error fetching event conflicts:', error);
+    return { error: 'Failed to fetch event conflicts' };
+  }
+};
+
+/**
+ * Checks what a proposed weekly entry would overlap before it is saved
+ * @param {number} orgId - Organization ID
+ * @param {string} day - e.g. 'MONDAY'
+ * @param {string} startTime - HH:mm
+ * @param {string} endTime - HH:mm
+ * @returns {Promise<{error?: string, content?: {entries: Array<Object>, events: Array<Object>}}>}
+ */
+export const checkScheduleConflicts = async (orgId, day, startTime, endTime) => {
+  try {
+    const params = new URLSearchParams({ day, startTime, endTime });
+    const response = await CallServer(`/api/schedules/conflicts/organization/${orgId}?${params}`, 'GET');
+    const data = await response.json();
+
+    if (!response.ok) {
+      return { error: data.error || 'Failed to check conflicts' };
+    }
+
+    return { content: data.content };
+  } catch (error) {
+    console.error('Error checking conflicts:', error);
+    return { error: 'Failed to check conflicts' };
+  }
+};
+
 /**
  * TODO - doc
  */
@@ -609,41 +704,155 @@ export const deleteChatRoom = async (orgId, roomId) => {
 }
 
 /**
- * Fetches messages for a specific chat room
+ * Waits for messages newer than the cursor. Resolves as soon as there are any, or with an empty page
+ * after the server's poll timeout. A fallback for when the WebSocket connection is unavailable.
  * @param {number} roomId - Chat room ID
- * @returns {Promise<{error?: string, content?: Array}>} Response containing messages or error
+ * @param {string} after - Cursor of the newest message the client has (a page's prevCursor or nextCursor)
  */
-export const fetchMessages = async (roomId) => {
+export const pollMessages = async (roomId, after) => {
   try {
     const response = await CallServer(
-      `/api/chat/rooms/${roomId}/messages`,
+      `/api/chat/rooms/${roomId}/messages/poll?after=${encodeURIComponent(after)}`,
       'GET'
     );
     const data = await response.json();
 
     if (!response.ok) {
-      return { error: data.error || 'Failed to fetch messages' };
+      return { error: data.error || 'Failed to poll messages' };
+    }
+
+    return {
+      content: data.content.messages,
+      nextCursor: data.content.nextCursor,
+      hasMore: data.content.hasMore
+    };
+  } catch (error) {
+    console.error('Error polling messages:', error);
+    return { error: 'Failed to poll messages' };
+  }
+};
+
+/**
+ * Fetches the progress of deleted chat rooms whose messages are still being removed (admins only).
+ * @param {number} orgId - Organization ID
+ */
+export const fetchChatRoomDeletions = async (orgId) => {
+  try {
+    const response = await CallServer(
+      `/api/chat/rooms/organization/${orgId}/deletions`,
+      'GET'
+    );
+    const data = await response.json();
+
+    if (!response.ok) {
+      return { error: data.error || 'Failed to fetch chat room deletions' };
     }
 
     return { content: data.content };
+  } catch (error) {
+    console.error('Error fetching chat room deletions:', error);
+    return { error: 'Failed to fetch chat room deletions' };
+  }
+};
+
+/**
+ * Fetches a page of messages for a specific chat room. Without a cursor the most recent page is returned.
+ * @param {number} roomId - Chat room ID
+ * @param {string} [before] - Cursor to load messages older than (from a previous page's nextCursor)
+ * @returns {Promise<{error?: string, content?: Array, nextCursor?: string, hasMore?: boolean}>} Response containing messages or error
+ */
+export const fetchMessages = async (roomId, before = null) => {
+  try {
+    const query = before ? `?before=${encodeURIComponent(before)}` : '';
+    const response = await CallServer(
+      `/api/chat/rooms/${roomId}/messages${query}`,
+      'GET'
+    );
+    const data = await response.json();
+
+    if (!response.ok) {
+      return { error: data.error || 'Failed to fetch messages' };
+    }
+
+    return {
+      content: data.content.messages,
+      nextCursor: data.content.nextCursor,
+      hasMore: data.content.hasMore
+    };
+  } catch (error) {
+    console.error('Error fetching messages:', error);
+    return { error: 'Failed to fetch messages' };
+  }
+};
+
+/**
+ * Fetches the messages numbered after a sequence number, oldest first. Use it to fill a gap
+ * in the seq values a client holds, or to sync from the last seq it has seen.
+ * @param {number} roomId - Chat room ID
+ * @param {number} afterSeq - Sequence number of the last message the client has
+ * @returns {Promise<{error?: string, content?: Array, hasMore?: boolean}>} Response containing messages or error
+ */
+export const fetchMessagesAfterSeq = async (roomId, afterSeq) => {
+  try {
+    const response = await CallServer(`/api/chat/rooms/${roomId}/messages?afterSeq=${afterSeq}`, 'GET');
+    const data = await response.json();
+
+    if (!response.ok) {
+      return { error: data.error || 'Failed to fetch messages' };
+    }
+
+    return {
+      content: data.content.messages,
+      hasMore: data.content.hasMore
+    };
   } catch (error) {
     console.error('Error fetching messages:', error);
     return { error: 'Failed to fetch messages' };
   }
 };
 
+/**
+ * Fetches one page of a message's thread, oldest reply first
+ * @param {number} roomId - Chat room ID
+ * @param {number} messageId - Top-level message ID
+ * @param {string} [after] - nextCursor of the previous page
+ * @returns {Promise<{error?: string, content?: Array, nextCursor?: string, hasMore?: boolean}>}
+ */
+export const fetchThreadReplies = async (roomId, messageId, after = null) => {
+  try {
+    const query = after ? `?after=${encodeURIComponent(after)}` : '';
+    const response = await CallServer(`/api/chat/rooms/${roomId}/messages/${messageId}/replies${query}`, 'GET');
+    const data = await response.json();
+
+    if (!response.ok) {
+      return { error: data.error || 'Failed to fetch replies' };
+    }
+
+    return {
+      content: data.content.messages,
+      nextCursor: data.content.nextCursor,
+      hasMore: data.content.hasMore
+    };
+  } catch (error) {
+    console.error('Error fetching replies:', error);
+    return { error: 'Failed to fetch replies' };
+  }
+};
+
 /**
  * Sends a new message to a chat room
  * @param {number} roomId - Chat room ID
  * @param {string} content - Message content
+ * @param {string} [clientMessageId] - Pass the same id when retrying so the message is only stored once
+ * @param {number} [parentMessageId] - Top-level message to reply to; replies are not part of the room's history pages
  * @returns {Promise<{error?: string, message?: string, content?: Object}>} Response containing sent message or error
  */
-export const sendMessage = async (roomId, content) => {
+export const sendMessage = async (roomId, content, clientMessageId = crypto.randomUUID(), parentMessageId = null) => {
   try {
     const response = await CallServer(
       `/api/chat/rooms/${roomId}/messages`,
       'POST',
-      { content }
+      { content, clientMessageId, parentMessageId }
     );
     const data = await response.json();
 
@@ -756,4 +965,147 @@ export const getUnreadCount = async (roomId) => {
     console.error('Error getting unread count:', error);
     return { error: 'Failed to get unread count' };
   }
-};
\ No newline at end of file
+};
+
+/**
+ * Gets unread message counts for every chat room the user belongs to in an organization
+ * @param {number} orgId - The organization ID
+ * @returns {Promise<{error?: string, content?: Object}>} Response containing a map of room ID to unread count, or error
+ */
+export const getUnreadCounts = async (orgId) => {
+  try {
+    const response = await CallServer(
+      `/api/chat/rooms/organization/${orgId}/unread-counts`,
+      'GET'
+    );
+    const data = await response.json();
+
+    if (!response.ok) {
+      return { error: data.error || 'Failed to get unread counts' };
+    }
+
+    return { content: data.content };
+  } catch (error) {
+    console.error('Error getting unread counts:', error);
+    return { error: 'Failed to get unread counts' };
+  }
+};
+
+/**
+ * Searches the messages of the user's chat rooms in an organization
+ * @param {number} orgId - The organization ID
+ * @param {string} query - The search terms
+ * @param {number} [roomId] - Restrict the search to one chat room
+ * @param {number} [page=0] - Zero-based page of results
+ * @returns {Promise<{error?: string, content?: Object}>} Response containing ranked results, or error
+ */
+export const searchMessages = async (orgId, query, roomId = null, page = 0) => {
+  try {
+    const params = new URLSearchParams({ q: query, page });
+    if (roomId) {
+      params.append('roomId', roomId);
+    }
+    const response = await CallServer(
+      `/api/chat/rooms/organization/${orgId}/search?${params}`,
+      'GET'
+    );
+    const data = await response.json();
+
+    if (!response.ok) {
+      return { error: data.error || 'Failed to search messages' };
+    }
+
+    return { content: data.content };
+  } catch (error) {
+    console.error('Error searching messages:', error);
+    return { error: 'Failed to search messages' };
+  }
+};
+
+/**
+ * Marks the current user online in an organization. Call periodically while the app is open.
+ * @param {number} orgId - Organization ID
+ */
+export const sendHeartbeat = async (orgId) => {
+  try {
+    const response = await CallServer(`/api/chat/presence/organization/${orgId}/heartbeat`, 'POST');
+    const data = await response.json();
+
+    if (!response.ok) {
+      return { error: data.error || 'Failed to send heartbeat' };
+    }
+
+    return { message: data.message };
+  } catch (error) {
+    console.error('Error sending heartbeat:', error);
+    return { error: 'Failed to send heartbeat' };
+  }
+};
+
+/**
+ * Starts or stops the current user's typing indicator in a chat room.
+ * @param {number} roomId - Chat room ID
+ * @param {boolean} typing - Whether the user is typing; repeat while they keep typing
+ */
+export const setTyping = async (roomId, typing) => {
+  try {
+    const response = await CallServer(`/api/chat/rooms/${roomId}/typing`, typing ? 'POST' : 'DELETE');
+    const data = await response.json();
+
+    if (!response.ok) {
+      return { error: data.error || 'Failed to update typing status' };
+    }
+
+    return { message: data.message };
+  } catch (error) {
+    console.error('Error updating typing status:', error);
+    return { error: 'Failed to update typing status' };
+  }
+};
+
+/**
+ * Fetches who is online in an organization and who is typing in the current user's rooms.
+ * @param {number} orgId - Organization ID
+ * @returns {Promise<{error?: string, content?: {online: Array<number>, typing: Object<string, Array<number>>}}>}
+ */
+export const fetchPresence = async (orgId) => {
+  try {
+    const response = await CallServer(`/api/chat/presence/organization/${orgId}`, 'GET');
+    const data = await response.json();
+
+    if (!response.ok) {
+      return { error: data.error || 'Failed to fetch presence' };
+    }
+
+    return { content: data.content };
+  } catch (error) {
+    console.error('Error fetching presence:', error);
+    return { error: 'Failed to fetch presence' };
+  }
+};
+
+/**
+ * Adds or removes one of the current user's reactions on a message.
+ * Subscribers of /topic/chat/rooms/{roomId}/reactions receive the new counts.
+ * @param {number} roomId - Chat room ID
+ * @param {number} messageId - Message ID
+ * @param {string} reaction - One of THUMBS_UP, HEART, LAUGH, SURPRISED, SAD, CELEBRATE
+ * @param {boolean} reacted - Whether to add or remove the reaction
+ * @returns {Promise<{error?: string, content?: {messageId: number, reactions: Object<string, number>, myReactions: Array<string>}}>}
+ */
+export const setReaction = async (roomId, messageId, reaction, reacted) => {
+  try {
+    const response = await CallServer(`/api/chat/rooms/${roomId}/messages/${messageId}/reactions/${reaction}`,
+      reacted ? 'POST' : 'DELETE');
+    const data = await response.json();
+
+    if (!response.ok) {
+      return { error: data.error || 'Failed to update reaction' };
+    }
+
+    return { content: data.content };
+  } catch (error) {
+    console.error('Error updating reaction:', error);
+    return { error: 'Failed to update reaction' };
+  }
+};
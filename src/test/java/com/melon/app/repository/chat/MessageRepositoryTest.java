@@ -0,0 +1,111 @@
+package com.melon.app.repository.chat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+
+import com.melon.app.controller.DTO.ChatRoomDTO.MessageDTO;
+import com.melon.app.entity.Organization;
+import com.melon.app.entity.User;
+import com.melon.app.entity.chat.ChatRoom;
+import com.melon.app.entity.chat.ChatType;
+import com.melon.app.entity.chat.Message;
+
+/**
+ * Rendering a page of history must cost one statement however many people wrote it: senders
+ * are fetched with the messages, not one lazy load per sender.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class MessageRepositoryTest {
+    private static final int MESSAGES = 40;
+    private static final int PAGE_SIZE = 15;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+            .unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4, 12})
+    void latestPageIsOneStatement(int senders) {
+        Long chatRoomId = createRoom(senders);
+
+        List<MessageDTO> page = countStatements(() -> render(
+            messageRepository.findLatestPage(chatRoomId, PageRequest.of(0, PAGE_SIZE))));
+
+        assertThat(page).hasSize(PAGE_SIZE);
+        assertThat(page).extracting(MessageDTO::getSenderUsername).doesNotContainNull();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4, 12})
+    void pageBeforeIsOneStatement(int senders) {
+        Long chatRoomId = createRoom(senders);
+        List<Message> latest = messageRepository.findLatestPage(chatRoomId, PageRequest.of(0, PAGE_SIZE)).getContent();
+        Message oldest = latest.get(latest.size() - 1);
+        entityManager.clear();
+
+        List<MessageDTO> page = countStatements(() -> render(messageRepository.findPageBefore(
+            chatRoomId, oldest.getSentAt(), oldest.getId(), PageRequest.of(0, PAGE_SIZE))));
+
+        assertThat(page).hasSize(PAGE_SIZE);
+        assertThat(page).extracting(MessageDTO::getSenderUsername).doesNotContainNull();
+    }
+
+    private List<MessageDTO> countStatements(Supplier<List<MessageDTO>> query) {
+        statistics.clear();
+        List<MessageDTO> page = query.get();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        return page;
+    }
+
+    private static List<MessageDTO> render(Slice<Message> slice) {
+        return slice.getContent().stream()
+            .map(message -> MessageDTO.fromEntity(message, null))
+            .toList();
+    }
+
+    // Messages are spread round-robin over the senders so every page has all of them
+    private Long createRoom(int senders) {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < senders; i++) {
+            users.add(entityManager.persist(new User("user" + i + "@example.com", "user" + i, "hash")));
+        }
+        Organization organization = entityManager.persist(new Organization("Org", users.get(0)));
+        ChatRoom chatRoom = entityManager.persist(new ChatRoom("General", organization, ChatType.GROUP));
+
+        LocalDateTime sentAt = LocalDateTime.of(2025, 1, 1, 12, 0);
+        for (int i = 0; i < MESSAGES; i++) {
+            Message message = new Message(chatRoom, users.get(i % senders), "message " + i);
+            message.setSentAt(sentAt.plusSeconds(i));
+            message.setSeq((long) i + 1);
+            entityManager.persist(message);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return chatRoom.getId();
+    }
+}
@@ -0,0 +1,109 @@
+package com.melon.app.service.schedule;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import com.melon.app.service.schedule.IntervalTree.Interval;
+
+/**
+ * Every query is checked against a scan of all intervals. Intervals are half-open, so two
+ * overlap only if each starts before the other ends.
+ */
+class IntervalTreeTest {
+    // [0, 10) [5, 15) [10, 20) [20, 30): the root is centered on 10, the middle start
+    private static final List<Interval<String>> CHAIN = List.of(
+        new Interval<>(0, 10, "a"), new Interval<>(5, 15, "b"),
+        new Interval<>(10, 20, "c"), new Interval<>(20, 30, "d"));
+
+    @ParameterizedTest
+    @CsvSource({
+        // Touching at an endpoint is not overlapping
+        "10, 20, 'b,c'", "20, 25, 'd'", "30, 40, ''", "-5, 0, ''", "15, 20, 'c'",
+        // Queries starting exactly on a center, including the root's
+        "10, 11, 'b,c'", "5, 6, 'a,b'", "20, 21, 'd'",
+        "0, 30, 'a,b,c,d'", "9, 10, 'a,b'"
+    })
+    void overlappingRespectsHalfOpenEndpoints(int from, int to, String expected) {
+        IntervalTree<String> tree = new IntervalTree<>(CHAIN);
+
+        assertThat(tree.overlapping(from, to))
+            .containsExactlyInAnyOrder(expected.isEmpty() ? new String[0] : expected.split(","));
+    }
+
+    @ParameterizedTest
+    @CsvSource({ "10, 10", "12, 12", "20, 10" })
+    void emptyQueryFindsNothing(int from, int to) {
+        IntervalTree<String> tree = new IntervalTree<>(CHAIN);
+
+        assertThat(tree.overlapping(from, to)).isEmpty();
+    }
+
+    @Test
+    void emptyIntervalsAreDropped() {
+        IntervalTree<String> tree = new IntervalTree<>(List.of(
+            new Interval<>(5, 5, "empty"), new Interval<>(8, 3, "reversed"), new Interval<>(0, 10, "kept")));
+
+        assertThat(tree.size()).isEqualTo(1);
+        assertThat(tree.overlapping(4, 6)).containsExactly("kept");
+        assertThat(tree.overlapping(5, 6)).containsExactly("kept");
+    }
+
+    @Test
+    void emptyTreeFindsNothing() {
+        IntervalTree<String> tree = new IntervalTree<>(List.of());
+
+        assertThat(tree.size()).isZero();
+        assertThat(tree.overlapping(0, 100)).isEmpty();
+    }
+
+    @Test
+    void identicalIntervalsAreAllReported() {
+        IntervalTree<Integer> tree = new IntervalTree<>(List.of(
+            new Interval<>(3, 7, 1), new Interval<>(3, 7, 2), new Interval<>(3, 7, 3)));
+
+        assertThat(tree.overlapping(3, 4)).containsExactlyInAnyOrder(1, 2, 3);
+        assertThat(tree.overlapping(6, 7)).containsExactlyInAnyOrder(1, 2, 3);
+        assertThat(tree.overlapping(7, 8)).isEmpty();
+    }
+
+    @Test
+    void overlappingMatchesBruteForce() {
+        Random random = new Random(25);
+        for (int round = 0; round < 300; round++) {
+            // A small coordinate range makes shared endpoints and equal starts common
+            int range = 5 + random.nextInt(60);
+            List<Interval<Integer>> intervals = new ArrayList<>();
+            for (int i = random.nextInt(40); i > 0; i--) {
+                int start = random.nextInt(range);
+                int end = start + random.nextInt(range / 2 + 1) - 2;
+                intervals.add(new Interval<>(start, end, intervals.size()));
+            }
+            IntervalTree<Integer> tree = new IntervalTree<>(intervals);
+
+            for (int from = -2; from <= range + 2; from++) {
+                for (int to = from - 1; to <= range + 2; to++) {
+                    assertThat(tree.overlapping(from, to))
+                        .as("round %d, [%d, %d) in %s", round, from, to, intervals)
+                        .containsExactlyInAnyOrderElementsOf(bruteForce(intervals, from, to));
+                }
+            }
+        }
+    }
+
+    private static List<Integer> bruteForce(List<Interval<Integer>> intervals, int from, int to) {
+        List<Integer> values = new ArrayList<>();
+        for (Interval<Integer> interval : intervals) {
+            if (from < to && interval.start() < interval.end() && interval.start() < to && from < interval.end()) {
+                values.add(interval.value());
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,169 @@
+package com.melon.app.service.schedule;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * The word arithmetic is checked against a plain boolean-per-slot model, with ranges chosen
+ * to start and end on either side of the word boundaries at 64 and at the last slot.
+ */
+class WeekSlotsTest {
+    private static final int LAST = WeekSlots.SLOTS - 1;
+
+    @ParameterizedTest
+    @CsvSource({
+        "0, 1", "0, 64", "0, 65", "63, 64", "63, 65", "64, 65", "64, 128", "62, 130",
+        "127, 129", "600, 671", "640, 672", "671, 672", "0, 672", "5, 5"
+    })
+    void setRangeSetsExactlyTheRange(int from, int to) {
+        long[] bits = WeekSlots.empty();
+        WeekSlots.setRange(bits, from, to);
+
+        assertThat(slots(bits)).containsExactly(range(from, to));
+        // The unused top bits of the last word stay clear
+        assertThat(bits[WeekSlots.WORDS - 1] >>> (WeekSlots.SLOTS % Long.SIZE)).isZero();
+    }
+
+    @Test
+    void setRangeKeepsSlotsAlreadySet() {
+        long[] bits = WeekSlots.empty();
+        WeekSlots.setRange(bits, 10, 20);
+        WeekSlots.setRange(bits, 63, 65);
+        WeekSlots.setRange(bits, LAST, WeekSlots.SLOTS);
+
+        List<Integer> expected = new ArrayList<>();
+        for (int slot = 10; slot < 20; slot++) {
+            expected.add(slot);
+        }
+        expected.addAll(List.of(63, 64, LAST));
+        assertThat(slots(bits)).containsExactlyElementsOf(expected);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        // Minutes to covered slots: partial slots at either end are included
+        "0, 15, 0, 1", "0, 16, 0, 2", "14, 16, 0, 2", "15, 30, 1, 2",
+        "945, 975, 63, 65", "10065, 10080, 671, 672", "10000, 20000, 666, 672"
+    })
+    void addIntervalCoversEveryOverlappedSlot(int startMinute, int endMinute, int fromSlot, int toSlot) {
+        long[] bits = WeekSlots.empty();
+        WeekSlots.addInterval(bits, startMinute, endMinute);
+
+        assertThat(slots(bits)).containsExactly(range(fromSlot, toSlot));
+    }
+
+    @ParameterizedTest
+    @CsvSource({ "-15, 30", "30, 30", "45, 30" })
+    void addIntervalIgnoresInvalidIntervals(int startMinute, int endMinute) {
+        long[] bits = WeekSlots.empty();
+        WeekSlots.addInterval(bits, startMinute, endMinute);
+
+        assertThat(slots(bits)).isEmpty();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 0, 63, 64, 639, 640, 670, 671, 672 })
+    void nextSlotOfEmptyAndFullWeeks(int from) {
+        long[] empty = WeekSlots.empty();
+        long[] full = WeekSlots.empty();
+        WeekSlots.setRange(full, 0, WeekSlots.SLOTS);
+
+        assertThat(WeekSlots.nextSetSlot(empty, from)).isEqualTo(WeekSlots.SLOTS);
+        // The unused top bits of the last word are clear, but are not slots
+        assertThat(WeekSlots.nextClearSlot(full, from)).isEqualTo(WeekSlots.SLOTS);
+        assertThat(WeekSlots.nextClearSlot(empty, from)).isEqualTo(Math.min(from, WeekSlots.SLOTS));
+        assertThat(WeekSlots.nextSetSlot(full, from)).isEqualTo(Math.min(from, WeekSlots.SLOTS));
+    }
+
+    @Test
+    void nextSlotMatchesLinearScan() {
+        Random random = new Random(21);
+        for (int round = 0; round < 200; round++) {
+            long[] bits = randomBits(random);
+            for (int from = 0; from <= WeekSlots.SLOTS; from++) {
+                assertThat(WeekSlots.nextSetSlot(bits, from)).as("nextSetSlot from %d", from)
+                    .isEqualTo(scan(bits, from, true));
+                assertThat(WeekSlots.nextClearSlot(bits, from)).as("nextClearSlot from %d", from)
+                    .isEqualTo(scan(bits, from, false));
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 0, 1, 2, 3, 4, 7, 8, 9, 63, 64, 65, 255, 256, 300 })
+    void countMatchesPerSlotSums(int bitsets) {
+        Random random = new Random(bitsets);
+        List<long[]> all = new ArrayList<>();
+        for (int i = 0; i < bitsets; i++) {
+            all.add(randomBits(random));
+        }
+
+        int[] expected = new int[WeekSlots.SLOTS];
+        for (long[] bits : all) {
+            WeekSlots.addTo(expected, bits, 1);
+        }
+        assertThat(WeekSlots.count(all)).containsExactly(expected);
+    }
+
+    @Test
+    void countCarriesIntoEveryPlane() {
+        // Every bitset sets every slot, so each count is carried up through all planes
+        List<long[]> all = new ArrayList<>();
+        for (int i = 0; i < 255; i++) {
+            long[] bits = WeekSlots.empty();
+            WeekSlots.setRange(bits, 0, WeekSlots.SLOTS);
+            all.add(bits);
+        }
+
+        int[] counts = WeekSlots.count(all);
+        for (int slot = 0; slot < WeekSlots.SLOTS; slot++) {
+            assertThat(counts[slot]).as("slot %d", slot).isEqualTo(255);
+        }
+    }
+
+    private static long[] randomBits(Random random) {
+        long[] bits = WeekSlots.empty();
+        // A few runs, some of them long enough to span whole words
+        for (int run = random.nextInt(8); run > 0; run--) {
+            int from = random.nextInt(WeekSlots.SLOTS);
+            int length = random.nextBoolean() ? random.nextInt(4) : random.nextInt(200);
+            WeekSlots.setRange(bits, from, Math.min(from + length, WeekSlots.SLOTS));
+        }
+        return bits;
+    }
+
+    private static int scan(long[] bits, int from, boolean set) {
+        for (int slot = from; slot < WeekSlots.SLOTS; slot++) {
+            if (WeekSlots.get(bits, slot) == set) {
+                return slot;
+            }
+        }
+        return WeekSlots.SLOTS;
+    }
+
+    private static List<Integer> slots(long[] bits) {
+        List<Integer> slots = new ArrayList<>();
+        for (int slot = 0; slot < WeekSlots.SLOTS; slot++) {
+            if (WeekSlots.get(bits, slot)) {
+                slots.add(slot);
+            }
+        }
+        return slots;
+    }
+
+    private static Integer[] range(int from, int to) {
+        Integer[] slots = new Integer[Math.max(0, to - from)];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = from + i;
+        }
+        return slots;
+    }
+}